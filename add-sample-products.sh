@@ -17,43 +17,31 @@ if [ -z "$ACCESS_TOKEN" ]; then
     exit 1
 fi
 
-# Product 1: iPhone 13
-echo "Adding iPhone 13..."
-curl -X POST "$API_URL" \
+# All sample products in one bulk call; upsert by skuCode makes re-running the script safe
+echo "Adding iPhone 13, iPhone 13 Red and Samsung Galaxy S21..."
+curl -X POST "$API_URL/bulk?upsert=true" \
   -H "Content-Type: application/json" \
   -H "Authorization: Bearer $ACCESS_TOKEN" \
-  -d '{
-    "name": "iPhone 13",
-    "description": "Latest iPhone model with amazing features",
-    "skuCode": "iphone_13",
-    "price": 999
-  }'
-echo ""
-
-# Product 2: iPhone 13 Red
-echo "Adding iPhone 13 Red..."
-curl -X POST "$API_URL" \
-  -H "Content-Type: application/json" \
-  -H "Authorization: Bearer $ACCESS_TOKEN" \
-  -d '{
-    "name": "iPhone 13 Red",
-    "description": "iPhone 13 in stunning red color",
-    "skuCode": "iphone_13_red",
-    "price": 999
-  }'
-echo ""
-
-# Product 3: Samsung Galaxy S21
-echo "Adding Samsung Galaxy S21..."
-curl -X POST "$API_URL" \
-  -H "Content-Type: application/json" \
-  -H "Authorization: Bearer $ACCESS_TOKEN" \
-  -d '{
-    "name": "Samsung Galaxy S21",
-    "description": "Premium Android smartphone",
-    "skuCode": "samsung_galaxy_s21",
-    "price": 899
-  }'
+  -d '[
+    {
+      "name": "iPhone 13",
+      "description": "Latest iPhone model with amazing features",
+      "skuCode": "iphone_13",
+      "price": 999
+    },
+    {
+      "name": "iPhone 13 Red",
+      "description": "iPhone 13 in stunning red color",
+      "skuCode": "iphone_13_red",
+      "price": 999
+    },
+    {
+      "name": "Samsung Galaxy S21",
+      "description": "Premium Android smartphone",
+      "skuCode": "samsung_galaxy_s21",
+      "price": 899
+    }
+  ]'
 echo ""
 
 echo "✅ Sample products added successfully!"
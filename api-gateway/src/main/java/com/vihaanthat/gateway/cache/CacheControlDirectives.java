@@ -0,0 +1,61 @@
+package com.vihaanthat.gateway.cache;
+
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.util.Locale;
+
+// The response Cache-Control directives a shared cache acts on
+record CacheControlDirectives(boolean noStore, boolean isPrivate, boolean noCache, boolean isPublic,
+                              Duration maxAge, Duration sharedMaxAge) {
+
+    static CacheControlDirectives of(HttpHeaders headers) {
+        boolean noStore = false;
+        boolean isPrivate = false;
+        boolean noCache = false;
+        boolean isPublic = false;
+        Duration maxAge = null;
+        Duration sharedMaxAge = null;
+        for (String value : headers.getOrEmpty(HttpHeaders.CACHE_CONTROL)) {
+            for (String directive : value.split(",")) {
+                String[] parts = directive.trim().toLowerCase(Locale.ROOT).split("=", 2);
+                switch (parts[0]) {
+                    case "no-store" -> noStore = true;
+                    case "private" -> isPrivate = true;
+                    case "no-cache" -> noCache = true;
+                    case "public" -> isPublic = true;
+                    case "max-age" -> maxAge = seconds(parts);
+                    case "s-maxage" -> sharedMaxAge = seconds(parts);
+                    default -> {
+                    }
+                }
+            }
+        }
+        return new CacheControlDirectives(noStore, isPrivate, noCache, isPublic, maxAge, sharedMaxAge);
+    }
+
+    /**
+     * How long a shared cache may serve the response without revalidating: s-maxage, else max-age, else the
+     * route's default TTL; zero for no-cache.
+     */
+    Duration freshness(Duration defaultTtl) {
+        if (noCache) {
+            return Duration.ZERO;
+        }
+        if (sharedMaxAge != null) {
+            return sharedMaxAge;
+        }
+        return maxAge != null ? maxAge : defaultTtl;
+    }
+
+    private static Duration seconds(String[] parts) {
+        if (parts.length < 2) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(parts[1].replace("\"", "").trim()));
+        } catch (NumberFormatException e) {
+            return Duration.ZERO;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.vihaanthat.gateway.cache;
+
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A stored 200 response. It is fresh for {@code freshFor} after {@code storedAt}; once stale it is revalidated
+ * downstream with its ETag or Last-Modified, or refetched when it has neither. {@code varyValues} holds the
+ * request header values named by the response's Vary header, which a request must match to be served it.
+ */
+record CachedResponse(HttpHeaders headers, byte[] body, Instant storedAt, Duration freshFor,
+                      Map<String, String> varyValues) {
+
+    boolean isFresh(Instant now) {
+        return storedAt.plus(freshFor).isAfter(now);
+    }
+
+    boolean hasValidator() {
+        return headers.getETag() != null || headers.getLastModified() != -1;
+    }
+
+    boolean matchesVary(HttpHeaders requestHeaders) {
+        return varyValues.entrySet()
+                .stream()
+                .allMatch(vary -> Objects.equals(vary.getValue(), requestHeaders.getFirst(vary.getKey())));
+    }
+
+    long ageSeconds(Instant now) {
+        return Math.max(0, Duration.between(storedAt, now).toSeconds());
+    }
+
+    // Approximate memory footprint, used to weigh entries against the cache's memory budget
+    int weight() {
+        return body.length + headers.toString().length() + 128;
+    }
+}
@@ -0,0 +1,346 @@
+package com.vihaanthat.gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.function.HandlerFilterFunction;
+import org.springframework.web.servlet.function.HandlerFunction;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared HTTP cache for idempotent GET routes, applied per route with {@link #filter(String, Duration)}.
+ * <ul>
+ *     <li>Only 200 responses are stored, and never ones marked no-store or private, carrying Set-Cookie or
+ *     Vary: *, or answering an Authorization request unless marked public or s-maxage.</li>
+ *     <li>Freshness comes from s-maxage or max-age, else the route's TTL; no-cache responses are stored but
+ *     revalidated on every use. Stale entries are revalidated with their ETag or Last-Modified, and a
+ *     downstream 304 refreshes them without transferring the body again.</li>
+ *     <li>Clients sending a matching If-None-Match get a 304 straight from the cache.</li>
+ *     <li>Concurrent misses for one key are collapsed: one request goes downstream, the others wait for
+ *     its response and are served from it, or go downstream themselves if it turned out not cacheable.</li>
+ *     <li>Entries are weighed by size against {@code gateway.cache.max-size}; bodies larger than
+ *     {@code gateway.cache.max-entry-size} stream through uncached.</li>
+ * </ul>
+ * Outcomes are counted in {@code gateway.cache.requests}, tagged by route id and result.
+ */
+@Component
+public class GatewayResponseCache {
+    private static final Logger log = LoggerFactory.getLogger(GatewayResponseCache.class);
+    // Hop-by-hop and length headers are recomputed for every response served from the cache
+    private static final Set<String> UNCACHED_HEADERS = Set.of("connection", "keep-alive", "transfer-encoding",
+            "content-length", "age", "proxy-connection", "upgrade", "trailer", "te");
+
+    private final Cache<String, CachedResponse> entries;
+    private final Map<String, CompletableFuture<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final int maxEntrySize;
+    private final Duration collapseTimeout;
+
+    public GatewayResponseCache(@Value("${gateway.cache.max-size:64MB}") DataSize maxSize,
+                                @Value("${gateway.cache.max-entry-size:2MB}") DataSize maxEntrySize,
+                                @Value("${gateway.cache.collapse-timeout:5s}") Duration collapseTimeout,
+                                MeterRegistry meterRegistry) {
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, CachedResponse entry) -> entry.weight())
+                .build();
+        this.maxEntrySize = (int) Math.min(Integer.MAX_VALUE, maxEntrySize.toBytes());
+        this.collapseTimeout = collapseTimeout;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("gateway.cache.size", () -> entries.policy().eviction().orElseThrow().weightedSize().orElse(0))
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("gateway.cache.entries", entries, Cache::estimatedSize)
+                .register(meterRegistry);
+    }
+
+    public HandlerFilterFunction<ServerResponse, ServerResponse> filter(String routeId, Duration ttl) {
+        return (request, next) -> handle(routeId, ttl, request, next);
+    }
+
+    private ServerResponse handle(String routeId, Duration ttl, ServerRequest request,
+                                  HandlerFunction<ServerResponse> next) throws Exception {
+        if (request.method() != HttpMethod.GET) {
+            return next.handle(request);
+        }
+        String key = routeId + " " + requestTarget(request.servletRequest());
+        Instant now = Instant.now();
+        CachedResponse cached = usable(entries.getIfPresent(key), request);
+        if (cached != null && cached.isFresh(now)) {
+            count(routeId, "hit");
+            return serve(cached, request, now, null);
+        }
+
+        CompletableFuture<CachedResponse> fetch = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> leader = inFlight.putIfAbsent(key, fetch);
+        if (leader != null) {
+            CachedResponse shared = usable(await(key, leader), request);
+            if (shared != null) {
+                count(routeId, "collapsed");
+                return serve(shared, request, Instant.now(), null);
+            }
+            count(routeId, "bypass");
+            return next.handle(request);
+        }
+        try {
+            return fetch(routeId, ttl, key, cached, request, next, fetch);
+        } catch (Exception | Error e) {
+            complete(key, fetch, null);
+            throw e;
+        }
+    }
+
+    private ServerResponse fetch(String routeId, Duration ttl, String key, CachedResponse cached, ServerRequest request,
+                                 HandlerFunction<ServerResponse> next, CompletableFuture<CachedResponse> fetch) throws Exception {
+        boolean revalidating = cached != null && cached.hasValidator();
+        ServerResponse response = next.handle(revalidating ? revalidationRequest(request, cached) : request);
+
+        if (revalidating && response.statusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+            Instant now = Instant.now();
+            HttpHeaders headers = new HttpHeaders();
+            headers.addAll(cached.headers());
+            // A 304 carries the current validators and freshness, which replace the stored ones
+            response.headers().forEach((name, values) -> {
+                if (!UNCACHED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                    headers.put(name, values);
+                }
+            });
+            CachedResponse refreshed = new CachedResponse(headers, cached.body(), now,
+                    CacheControlDirectives.of(headers).freshness(ttl), cached.varyValues());
+            entries.put(key, refreshed);
+            complete(key, fetch, refreshed);
+            count(routeId, "revalidated");
+            return serve(refreshed, request, now, response);
+        }
+
+        Duration freshFor = storableFor(request, response, ttl);
+        count(routeId, "miss");
+        if (freshFor == null) {
+            complete(key, fetch, null);
+            return response;
+        }
+        HttpHeaders headers = storedHeaders(response.headers());
+        Map<String, String> varyValues = varyValues(response.headers(), request.headers().asHttpHeaders());
+        return new CapturingServerResponse(response, maxEntrySize, (status, body) -> {
+            CachedResponse entry = null;
+            // The actual status matters: a circuit breaker fallback is forwarded behind a 200 response
+            if (status == HttpStatus.OK.value() && body != null) {
+                entry = new CachedResponse(headers, body, Instant.now(), freshFor, varyValues);
+                entries.put(key, entry);
+            }
+            complete(key, fetch, entry);
+        });
+    }
+
+    // Returns how long the response may be served from the cache, or null when it must not be stored
+    private Duration storableFor(ServerRequest request, ServerResponse response, Duration ttl) {
+        HttpHeaders headers = response.headers();
+        if (response.statusCode().value() != HttpStatus.OK.value() || !response.cookies().isEmpty()
+                || headers.containsKey(HttpHeaders.SET_COOKIE) || headers.getVary().contains("*")
+                || headers.getContentLength() > maxEntrySize) {
+            return null;
+        }
+        CacheControlDirectives cacheControl = CacheControlDirectives.of(headers);
+        if (cacheControl.noStore() || cacheControl.isPrivate()) {
+            return null;
+        }
+        if (request.headers().asHttpHeaders().containsKey(HttpHeaders.AUTHORIZATION)
+                && !cacheControl.isPublic() && cacheControl.sharedMaxAge() == null) {
+            return null;
+        }
+        Duration freshFor = cacheControl.freshness(ttl);
+        boolean hasValidator = headers.getETag() != null || headers.getLastModified() != -1;
+        return freshFor.isZero() && !hasValidator ? null : freshFor;
+    }
+
+    // The downstream 304 answering a revalidation, if any, is written to a DiscardedResponse first, which
+    // releases its connection without touching the client's response
+    private ServerResponse serve(CachedResponse cached, ServerRequest request, Instant now, ServerResponse notModified) {
+        String etag = cached.headers().getETag();
+        List<String> ifNoneMatch = request.headers().header(HttpHeaders.IF_NONE_MATCH);
+        if (etag != null && ifNoneMatch.stream()
+                .flatMap(value -> Arrays.stream(value.split(",")))
+                .map(String::trim)
+                .anyMatch(candidate -> candidate.equals("*") || weakEquals(candidate, etag))) {
+            return ServerResponse.status(HttpStatus.NOT_MODIFIED)
+                    .headers(headers -> {
+                        headers.setETag(etag);
+                        headers.put(HttpHeaders.CACHE_CONTROL, cached.headers().getOrEmpty(HttpHeaders.CACHE_CONTROL));
+                    })
+                    .build((servletRequest, servletResponse) -> {
+                        discard(notModified, servletRequest, servletResponse);
+                        return null;
+                    });
+        }
+        byte[] body = cached.body();
+        return ServerResponse.ok()
+                .headers(headers -> {
+                    headers.addAll(cached.headers());
+                    headers.set(HttpHeaders.AGE, Long.toString(cached.ageSeconds(now)));
+                    headers.setContentLength(body.length);
+                })
+                .build((servletRequest, servletResponse) -> {
+                    discard(notModified, servletRequest, servletResponse);
+                    servletResponse.getOutputStream().write(body);
+                    return null;
+                });
+    }
+
+    private static void discard(ServerResponse response, HttpServletRequest servletRequest,
+                                HttpServletResponse servletResponse) throws ServletException, IOException {
+        if (response != null) {
+            response.writeTo(servletRequest, new DiscardedResponse(servletResponse), List::of);
+        }
+    }
+
+    // The cache revalidates with its own validators; the client's conditional headers are answered by serve()
+    private static ServerRequest revalidationRequest(ServerRequest request, CachedResponse cached) {
+        return ServerRequest.from(request)
+                .headers(headers -> {
+                    headers.remove(HttpHeaders.IF_NONE_MATCH);
+                    headers.remove(HttpHeaders.IF_MODIFIED_SINCE);
+                    String etag = cached.headers().getETag();
+                    if (etag != null) {
+                        headers.setIfNoneMatch(etag);
+                    } else {
+                        headers.setIfModifiedSince(cached.headers().getLastModified());
+                    }
+                })
+                .build();
+    }
+
+    private CachedResponse await(String key, CompletableFuture<CachedResponse> leader) {
+        try {
+            return leader.get(collapseTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            // A leader that never finished must not hold back later misses for this key
+            inFlight.remove(key, leader);
+            log.debug("Collapsed request for {} gave up waiting", key, e);
+            return null;
+        }
+    }
+
+    private void complete(String key, CompletableFuture<CachedResponse> fetch, CachedResponse entry) {
+        inFlight.remove(key, fetch);
+        fetch.complete(entry);
+    }
+
+    private void count(String routeId, String result) {
+        meterRegistry.counter("gateway.cache.requests", "route", routeId, "result", result).increment();
+    }
+
+    private static CachedResponse usable(CachedResponse cached, ServerRequest request) {
+        return cached != null && cached.matchesVary(request.headers().asHttpHeaders()) ? cached : null;
+    }
+
+    private static HttpHeaders storedHeaders(HttpHeaders responseHeaders) {
+        HttpHeaders headers = new HttpHeaders();
+        responseHeaders.forEach((name, values) -> {
+            if (!UNCACHED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                headers.put(name, List.copyOf(values));
+            }
+        });
+        return headers;
+    }
+
+    private static Map<String, String> varyValues(HttpHeaders responseHeaders, HttpHeaders requestHeaders) {
+        Map<String, String> varyValues = new LinkedHashMap<>();
+        for (String name : responseHeaders.getVary()) {
+            varyValues.put(name, requestHeaders.getFirst(name));
+        }
+        return varyValues;
+    }
+
+    private static String requestTarget(HttpServletRequest servletRequest) {
+        String query = servletRequest.getQueryString();
+        return query == null ? servletRequest.getRequestURI() : servletRequest.getRequestURI() + "?" + query;
+    }
+
+    private static boolean weakEquals(String candidate, String etag) {
+        return stripWeak(candidate).equals(stripWeak(etag));
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    // Writes the downstream response to the client as usual and hands the status and a copy of the body
+    // (null when it exceeded the limit or the write failed) to the callback once the write is done
+    private record CapturingServerResponse(ServerResponse delegate, int limit, CaptureCallback callback)
+            implements ServerResponse {
+
+        @Override
+        public HttpStatusCode statusCode() {
+            return delegate.statusCode();
+        }
+
+        @Override
+        @Deprecated
+        @SuppressWarnings("removal")
+        public int rawStatusCode() {
+            return delegate.statusCode().value();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return delegate.headers();
+        }
+
+        @Override
+        public MultiValueMap<String, Cookie> cookies() {
+            return delegate.cookies();
+        }
+
+        @Override
+        public ModelAndView writeTo(HttpServletRequest request, HttpServletResponse response, Context context)
+                throws ServletException, IOException {
+            BodyCapturingResponse capture = new BodyCapturingResponse(response, limit);
+            boolean written = false;
+            try {
+                ModelAndView modelAndView = delegate.writeTo(request, capture, context);
+                written = true;
+                return modelAndView;
+            } finally {
+                callback.captured(capture.getStatus(), written ? capture.body() : null);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface CaptureCallback {
+        void captured(int status, byte[] body);
+    }
+}
@@ -1,53 +1,120 @@
 package com.vihaanthat.gateway.routes;
 
+import com.vihaanthat.gateway.cache.GatewayResponseCache;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletPath;
+import org.springframework.cloud.gateway.server.mvc.common.HttpStatusHolder;
+import org.springframework.cloud.gateway.server.mvc.common.MvcUtils;
+import org.springframework.cloud.gateway.server.mvc.filter.CircuitBreakerFilterFunctions;
 import org.springframework.cloud.gateway.server.mvc.handler.GatewayRouterFunctions;
 import org.springframework.cloud.gateway.server.mvc.handler.HandlerFunctions;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
-import org.springframework.web.servlet.function.HandlerFunction;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.function.HandlerFilterFunction;
 import org.springframework.web.servlet.function.RequestPredicates;
 import org.springframework.web.servlet.function.RouterFunction;
-import org.springframework.web.servlet.function.ServerRequest;
 import org.springframework.web.servlet.function.ServerResponse;
 
-import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
 
-import static org.springframework.cloud.gateway.server.mvc.filter.CircuitBreakerFilterFunctions.circuitBreaker;
 import static org.springframework.cloud.gateway.server.mvc.filter.FilterFunctions.setPath;
 import static org.springframework.cloud.gateway.server.mvc.handler.GatewayRouterFunctions.route;
 import static org.springframework.cloud.gateway.server.mvc.handler.HandlerFunctions.http;
 
 @Configuration
 public class Routes {
+    private static final String FALLBACK_URI = "forward:/fallbackRoute";
+    private static final String FAILURE_STATUSES = "gateway.circuit-breaker.failure-statuses.";
 
-    // Helper that delegates to the built-in http(...) handler, inspects the downstream status,
-    // and throws a RuntimeException when the response status is not 2xx. Throwing an exception
-    // ensures the circuit breaker filter treats the call as a failure and invokes the fallback.
-    private HandlerFunction<ServerResponse> httpWithStatusCheck(String uri) {
-        HandlerFunction<ServerResponse> delegate = http(uri);
-        return (ServerRequest request) -> {
-            ServerResponse resp = delegate.handle(request);
-            HttpStatusCode status = resp.statusCode();
-            if (!status.is2xxSuccessful()) {
-                throw new RuntimeException("Downstream returned non-2xx status: " + status.value());
+    private final GatewayResponseCache responseCache;
+    private final Duration productCacheTtl;
+    private final Environment environment;
+    private final String productServiceUrl;
+    private final String orderServiceUrl;
+    private final String inventoryServiceUrl;
+
+    public Routes(GatewayResponseCache responseCache,
+                  @Value("${gateway.cache.product-ttl:30s}") Duration productCacheTtl,
+                  Environment environment,
+                  @Value("${product.url:http://localhost:8080}") String productServiceUrl,
+                  @Value("${order.url:http://localhost:8081}") String orderServiceUrl,
+                  @Value("${inventory.url:http://localhost:8082}") String inventoryServiceUrl) {
+        this.responseCache = responseCache;
+        this.productCacheTtl = productCacheTtl;
+        this.environment = environment;
+        this.productServiceUrl = productServiceUrl;
+        this.orderServiceUrl = orderServiceUrl;
+        this.inventoryServiceUrl = inventoryServiceUrl;
+    }
+
+    // The circuit breaker counts a call as failed when it throws (connection errors, time limiter timeouts)
+    // or when the downstream status is in the route's failure statuses; it then answers with the fallback.
+    // Any other status, 4xx included, is streamed to the client unchanged and counts as a success.
+    private HandlerFilterFunction<ServerResponse, ServerResponse> circuitBreaker(String routeId, String circuitBreakerId) {
+        Set<String> failureStatuses = failureStatuses(routeId);
+        return CircuitBreakerFilterFunctions.circuitBreaker(config -> config
+                        .setId(circuitBreakerId)
+                        .setFallbackUri(FALLBACK_URI)
+                        .setStatusCodes(failureStatuses))
+                .andThen(closeFailedResponses(failureStatuses));
+    }
+
+    // The circuit breaker replaces a failure status with the fallback without ever writing the downstream
+    // response, which would keep its pooled connection leased; close it before the breaker sees it
+    private static HandlerFilterFunction<ServerResponse, ServerResponse> closeFailedResponses(Set<String> failureStatuses) {
+        Set<HttpStatusCode> failureCodes = failureStatuses.stream()
+                .map(status -> HttpStatusHolder.valueOf(status).resolve())
+                .collect(Collectors.toSet());
+        return (request, next) -> {
+            ServerResponse response = next.handle(request);
+            if (failureCodes.contains(response.statusCode())) {
+                ClientHttpResponse clientResponse = MvcUtils.getAttribute(request, MvcUtils.CLIENT_RESPONSE_ATTR);
+                if (clientResponse != null) {
+                    clientResponse.close();
+                }
             }
-            return resp;
+            return response;
         };
     }
 
+    // gateway.circuit-breaker.failure-statuses.<route id>, else .default: status codes, names or series such as 5xx
+    private Set<String> failureStatuses(String routeId) {
+        String configured = environment.getProperty(FAILURE_STATUSES + routeId,
+                environment.getProperty(FAILURE_STATUSES + "default", "5xx"));
+        Set<String> statuses = new LinkedHashSet<>();
+        for (String status : StringUtils.commaDelimitedListToSet(configured)) {
+            String trimmed = status.trim();
+            if (trimmed.matches("[1-5][xX][xX]")) {
+                int series = (trimmed.charAt(0) - '0') * 100;
+                for (int code = series; code < series + 100; code++) {
+                    statuses.add(Integer.toString(code));
+                }
+            } else if (!trimmed.isEmpty()) {
+                statuses.add(trimmed);
+            }
+        }
+        return statuses;
+    }
+
     @Bean
     public RouterFunction<ServerResponse> productServiceRoute() {
         return route("product_service")
                 // Match /api/product and /api/product/** (downstream-native paths)
                 .route(
                         RequestPredicates.path("/api/product").or(RequestPredicates.path("/api/product/**")),
-                        // use wrapper so non-2xx results are turned into exceptions (and trigger fallback)
-                        httpWithStatusCheck("http://localhost:8080")
+                        http(productServiceUrl)
                 )
-                .filter(circuitBreaker("productServiceCircuitBreaker", URI.create("forward:/fallbackRoute")))
+                // Outermost filter: cache hits never reach the circuit breaker or the product service
+                .filter(responseCache.filter("product_service", productCacheTtl))
+                .filter(circuitBreaker("product_service", "productServiceCircuitBreaker"))
                 .build();
     }
 
@@ -57,18 +124,20 @@ public class Routes {
         return route("product_service_public")
                 .route(
                         RequestPredicates.path("/product").or(RequestPredicates.path("/product/**")),
-                        // Forward to the downstream service with an /api prefix so /product/1 -> http://localhost:8080/api/product/1
-                        httpWithStatusCheck("http://localhost:8080/api")
+                        // Forward to the downstream service with an /api prefix so /product/1 -> <product.url>/api/product/1
+                        http(productServiceUrl + "/api")
                 )
-                .filter(circuitBreaker("productServiceCircuitBreaker", URI.create("forward:/fallbackRoute")))
+                // Outermost filter: cache hits never reach the circuit breaker or the product service
+                .filter(responseCache.filter("product_service_public", productCacheTtl))
+                .filter(circuitBreaker("product_service_public", "productServiceCircuitBreaker"))
                 .build();
     }
 
     @Bean
     public RouterFunction<ServerResponse> productServiceSwaggerRoute(DispatcherServletPath dispatcherServletPath) {
         return route("product_service_swagger")
-                .route(RequestPredicates.path("/product-service/api-docs"), http("http://localhost:8080"))
-                .filter(circuitBreaker("productServiceSwaggerCircuitBreaker", URI.create("forward:/fallbackRoute")))
+                .route(RequestPredicates.path("/product-service/api-docs"), http(productServiceUrl))
+                .filter(circuitBreaker("product_service_swagger", "productServiceSwaggerCircuitBreaker"))
                 // downstream services expose OpenAPI JSON at /api-docs (configured in their application.properties)
                 .filter(setPath("/api-docs"))
                 .build();
@@ -77,16 +146,16 @@ public class Routes {
     @Bean
     public RouterFunction<ServerResponse> orderServiceRoute() {
         return route("order_service")
-                .route(RequestPredicates.path("/api/order/**"), http("http://localhost:8081"))
-                .filter(circuitBreaker("orderServiceCircuitBreaker", URI.create("forward:/fallbackRoute")))
+                .route(RequestPredicates.path("/api/order/**"), http(orderServiceUrl))
+                .filter(circuitBreaker("order_service", "orderServiceCircuitBreaker"))
                 .build();
     }
 
     @Bean
     public RouterFunction<ServerResponse> orderServiceSwaggerRoute(DispatcherServletPath dispatcherServletPath) {
         return route("order_service_swagger")
-                .route(RequestPredicates.path("/order-service/api-docs"), http("http://localhost:8081"))
-                .filter(circuitBreaker("orderServiceSwaggerCircuitBreaker", URI.create("forward:/fallbackRoute")))
+                .route(RequestPredicates.path("/order-service/api-docs"), http(orderServiceUrl))
+                .filter(circuitBreaker("order_service_swagger", "orderServiceSwaggerCircuitBreaker"))
                 .filter(setPath("/api-docs"))
                 .build();
     }
@@ -94,8 +163,8 @@ public class Routes {
     @Bean
     public RouterFunction<ServerResponse> inventoryServiceRoute() {
         return route("inventory_service")
-                .route(RequestPredicates.path("/api/inventory/**"), http("http://localhost:8082"))
-                .filter(circuitBreaker("inventoryServiceCircuitBreaker", URI.create("forward:/fallbackRoute")))
+                .route(RequestPredicates.path("/api/inventory/**"), http(inventoryServiceUrl))
+                .filter(circuitBreaker("inventory_service", "inventoryServiceCircuitBreaker"))
                 .build();
     }
 
@@ -103,8 +172,8 @@ public class Routes {
     @Bean
     public RouterFunction<ServerResponse> inventoryServiceSwaggerRoute(DispatcherServletPath dispatcherServletPath) {
         return route("inventory_service_swagger")
-                .route(RequestPredicates.path("/inventory-service/api-docs"), http("http://localhost:8082"))
-                .filter(circuitBreaker("inventoryServiceSwaggerCircuitBreaker", URI.create("forward:/fallbackRoute")))
+                .route(RequestPredicates.path("/inventory-service/api-docs"), http(inventoryServiceUrl))
+                .filter(circuitBreaker("inventory_service_swagger", "inventoryServiceSwaggerCircuitBreaker"))
                 .filter(setPath("/api-docs"))
                 .build();
     }
@@ -0,0 +1,213 @@
+package com.vihaanthat.gateway.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.function.HandlerFunction;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives {@link GatewayResponseCache#filter} with mock servlet requests and a stub downstream handler,
+ * so the caching rules are tested without a running gateway.
+ */
+class GatewayResponseCacheTests {
+    private static final String ROUTE = "product_service";
+    private static final List<HttpMessageConverter<?>> CONVERTERS = List.of(new StringHttpMessageConverter());
+    private static final ServerResponse.Context CONTEXT = () -> CONVERTERS;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldServeFreshEntryWithoutCallingDownstream() throws Exception {
+        GatewayResponseCache cache = cache(DataSize.ofMegabytes(2));
+        Downstream downstream = new Downstream(request -> ok("[\"phone\"]", Map.of(HttpHeaders.ETAG, "\"v1\"")));
+
+        MockHttpServletResponse first = exchange(cache, Duration.ofSeconds(30), request(), downstream);
+        MockHttpServletResponse second = exchange(cache, Duration.ofSeconds(30), request(), downstream);
+
+        assertEquals(1, downstream.calls.get());
+        assertEquals("[\"phone\"]", second.getContentAsString());
+        assertEquals("\"v1\"", second.getHeader(HttpHeaders.ETAG));
+        assertNotNull(second.getHeader(HttpHeaders.AGE));
+        assertNull(first.getHeader(HttpHeaders.AGE));
+        assertEquals(1, count("miss"));
+        assertEquals(1, count("hit"));
+    }
+
+    @Test
+    void shouldAnswerMatchingIfNoneMatchFromTheCache() throws Exception {
+        GatewayResponseCache cache = cache(DataSize.ofMegabytes(2));
+        Downstream downstream = new Downstream(request -> ok("[\"phone\"]", Map.of(HttpHeaders.ETAG, "\"v1\"")));
+
+        exchange(cache, Duration.ofSeconds(30), request(), downstream);
+        MockHttpServletRequest conditional = request();
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"v1\"");
+        MockHttpServletResponse response = exchange(cache, Duration.ofSeconds(30), conditional, downstream);
+
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(1, downstream.calls.get());
+    }
+
+    @Test
+    void shouldRevalidateStaleEntryWithItsETag() throws Exception {
+        GatewayResponseCache cache = cache(DataSize.ofMegabytes(2));
+        Downstream downstream = new Downstream(request -> "\"v1\"".equals(request.headers().firstHeader(HttpHeaders.IF_NONE_MATCH))
+                ? ServerResponse.status(HttpStatus.NOT_MODIFIED).eTag("\"v1\"").build()
+                : ok("[\"phone\"]", Map.of(HttpHeaders.ETAG, "\"v1\"", HttpHeaders.CACHE_CONTROL, "no-cache")));
+
+        exchange(cache, Duration.ofSeconds(30), request(), downstream);
+        MockHttpServletResponse revalidated = exchange(cache, Duration.ofSeconds(30), request(), downstream);
+
+        assertEquals(2, downstream.calls.get());
+        assertEquals(HttpStatus.OK.value(), revalidated.getStatus());
+        assertEquals("[\"phone\"]", revalidated.getContentAsString());
+        assertEquals(1, count("revalidated"));
+    }
+
+    @Test
+    void shouldKeepEntriesApartByVaryHeader() throws Exception {
+        GatewayResponseCache cache = cache(DataSize.ofMegabytes(2));
+        Downstream downstream = new Downstream(request -> ok(
+                "encoding=" + request.headers().firstHeader(HttpHeaders.ACCEPT_ENCODING),
+                Map.of(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)));
+
+        MockHttpServletRequest gzip = request();
+        gzip.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        exchange(cache, Duration.ofSeconds(30), gzip, downstream);
+        MockHttpServletRequest gzipAgain = request();
+        gzipAgain.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        assertEquals("encoding=gzip", exchange(cache, Duration.ofSeconds(30), gzipAgain, downstream).getContentAsString());
+        assertEquals(1, downstream.calls.get());
+
+        MockHttpServletResponse identity = exchange(cache, Duration.ofSeconds(30), request(), downstream);
+        assertEquals("encoding=null", identity.getContentAsString());
+        assertEquals(2, downstream.calls.get());
+    }
+
+    @Test
+    void shouldCollapseConcurrentMissesIntoOneDownstreamCall() throws Exception {
+        GatewayResponseCache cache = cache(DataSize.ofMegabytes(2));
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Downstream downstream = new Downstream(request -> {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ok("[\"phone\"]", Map.of());
+        });
+
+        CompletableFuture<MockHttpServletResponse> leader = CompletableFuture.supplyAsync(
+                () -> exchangeUnchecked(cache, request(), downstream));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        Thread follower = Thread.ofPlatform().unstarted(() -> exchangeUnchecked(cache, request(), downstream));
+        follower.start();
+        // The follower parks on the leader's future until the leader's response has been written
+        while (follower.getState() != Thread.State.TIMED_WAITING && follower.isAlive()) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        assertEquals("[\"phone\"]", leader.get(5, TimeUnit.SECONDS).getContentAsString());
+        follower.join(5_000);
+
+        assertEquals(1, downstream.calls.get());
+        assertEquals(1, count("collapsed"));
+    }
+
+    @Test
+    void shouldStreamResponsesOverTheEntrySizeLimitWithoutStoringThem() throws Exception {
+        GatewayResponseCache cache = cache(DataSize.ofBytes(16));
+        String body = "x".repeat(64);
+        Downstream downstream = new Downstream(request -> ok(body, Map.of()));
+
+        MockHttpServletResponse first = exchange(cache, Duration.ofSeconds(30), request(), downstream);
+        MockHttpServletResponse second = exchange(cache, Duration.ofSeconds(30), request(), downstream);
+
+        assertEquals(body, first.getContentAsString());
+        assertEquals(body, second.getContentAsString());
+        assertEquals(2, downstream.calls.get());
+        assertEquals(0, count("hit"));
+    }
+
+    private GatewayResponseCache cache(DataSize maxEntrySize) {
+        return new GatewayResponseCache(DataSize.ofMegabytes(8), maxEntrySize, Duration.ofSeconds(5), meterRegistry);
+    }
+
+    private double count(String result) {
+        return meterRegistry.counter("gateway.cache.requests", "route", ROUTE, "result", result).count();
+    }
+
+    private static MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/api/product");
+    }
+
+    private static MockHttpServletResponse exchange(GatewayResponseCache cache, Duration ttl,
+                                                    MockHttpServletRequest servletRequest,
+                                                    HandlerFunction<ServerResponse> downstream) throws Exception {
+        ServerRequest request = ServerRequest.create(servletRequest, CONVERTERS);
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        cache.filter(ROUTE, ttl).filter(request, downstream).writeTo(servletRequest, servletResponse, CONTEXT);
+        return servletResponse;
+    }
+
+    private static MockHttpServletResponse exchangeUnchecked(GatewayResponseCache cache,
+                                                             MockHttpServletRequest servletRequest,
+                                                             HandlerFunction<ServerResponse> downstream) {
+        try {
+            return exchange(cache, Duration.ofSeconds(30), servletRequest, downstream);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // A downstream 200 written straight to the servlet response, as the proxying handler does
+    private static ServerResponse ok(String body, Map<String, String> headers) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        return ServerResponse.ok()
+                .headers(httpHeaders -> headers.forEach(httpHeaders::set))
+                .build((servletRequest, servletResponse) -> {
+                    servletResponse.getOutputStream().write(bytes);
+                    return null;
+                });
+    }
+
+    private static final class Downstream implements HandlerFunction<ServerResponse> {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final Function<ServerRequest, ServerResponse> responder;
+
+        private Downstream(Function<ServerRequest, ServerResponse> responder) {
+            this.responder = responder;
+        }
+
+        @Override
+        public ServerResponse handle(ServerRequest request) {
+            calls.incrementAndGet();
+            return responder.apply(request);
+        }
+    }
+}
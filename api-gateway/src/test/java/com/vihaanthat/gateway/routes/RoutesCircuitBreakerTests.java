@@ -0,0 +1,89 @@
+package com.vihaanthat.gateway.routes;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The product routes against a WireMock product service: which downstream statuses pass through and which
+// ones the circuit breaker records as failures and answers with the fallback
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWireMock(port = 0)
+@TestPropertySource(properties = {
+    "product.url=http://localhost:${wiremock.server.port}",
+    "gateway.circuit-breaker.failure-statuses.product_service_public=404, 5xx"
+})
+class RoutesCircuitBreakerTests {
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        circuitBreaker = circuitBreakerRegistry.circuitBreaker("productServiceCircuitBreaker");
+        circuitBreaker.reset();
+    }
+
+    @Test
+    void shouldStreamNotFoundThroughWithoutTrippingTheBreaker() {
+        stubFor(get(urlEqualTo("/api/product/missing"))
+                .willReturn(aResponse().withStatus(404).withBody("Product missing not found")));
+
+        for (int i = 0; i < 10; i++) {
+            ResponseEntity<String> response = restTemplate.getForEntity("/api/product/missing", String.class);
+            assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+            assertEquals("Product missing not found", response.getBody());
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    void shouldTripTheBreakerOnServerErrors() {
+        // Neither 500 nor 503 is listed by name: both come from expanding the default 5xx
+        stubFor(get(urlEqualTo("/api/product/broken")).willReturn(aResponse().withStatus(500)));
+        stubFor(get(urlEqualTo("/api/product/overloaded")).willReturn(aResponse().withStatus(503)));
+
+        for (int i = 0; i < 3; i++) {
+            assertFallback(restTemplate.getForEntity("/api/product/broken", String.class));
+            assertFallback(restTemplate.getForEntity("/api/product/overloaded", String.class));
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void shouldApplyPerRouteFailureStatuses() {
+        stubFor(get(urlEqualTo("/api/product/missing"))
+                .willReturn(aResponse().withStatus(404).withBody("Product missing not found")));
+
+        // product_service_public also counts 404, while product_service keeps the default 5xx
+        assertFallback(restTemplate.getForEntity("/product/missing", String.class));
+        int failedCalls = circuitBreaker.getMetrics().getNumberOfFailedCalls();
+        assertTrue(failedCalls > 0);
+
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity("/api/product/missing", String.class).getStatusCode());
+        assertEquals(failedCalls, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+    }
+
+    private static void assertFallback(ResponseEntity<String> response) {
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("Service is currently unavailable. Please try again later.", response.getBody());
+    }
+}
@@ -7,12 +7,18 @@
  * @property {string} firstName - User first name
  * @property {string} lastName - User last name
  * 
- * @typedef {Object} Order
- * @property {number} [id] - Order ID (optional, set by backend)
- * @property {string} [orderNumber] - Order number (optional, set by backend)
+ * @typedef {Object} OrderLine
  * @property {string} skuCode - Product SKU code
  * @property {number} price - Product price
  * @property {number} quantity - Order quantity
+ * 
+ * @typedef {Object} Order
+ * @property {number} [id] - Order ID (optional, set by backend)
+ * @property {string} [orderNumber] - Order number (optional, set by backend)
+ * @property {OrderLine[]} [orderLines] - Order lines (takes precedence over the single-item fields below)
+ * @property {string} [skuCode] - Product SKU code (single-item order)
+ * @property {number} [price] - Product price (single-item order)
+ * @property {number} [quantity] - Order quantity (single-item order)
  * @property {UserDetails} userDetails - User details
  */
 
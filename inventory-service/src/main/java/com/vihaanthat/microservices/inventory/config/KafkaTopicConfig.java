@@ -0,0 +1,28 @@
+package com.vihaanthat.microservices.inventory.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+import java.time.Duration;
+
+@Configuration
+public class KafkaTopicConfig {
+
+    // Compacted: consumers rebuilding a local replica read only the latest stock level per skuCode
+    @Bean
+    public NewTopic stockLevelTopic(@Value("${inventory.stock-events.topic:inventory-stock-levels}") String topic,
+                                    @Value("${inventory.stock-events.partitions:3}") int partitions,
+                                    @Value("${inventory.stock-events.replicas:1}") int replicas,
+                                    @Value("${inventory.stock-events.segment-duration:1h}") Duration segmentDuration) {
+        return TopicBuilder.name(topic)
+                .partitions(partitions)
+                .replicas(replicas)
+                .compact()
+                .config(TopicConfig.SEGMENT_MS_CONFIG, String.valueOf(segmentDuration.toMillis()))
+                .build();
+    }
+}
@@ -1,17 +1,33 @@
 package com.vihaanthat.microservices.inventory.controller;
 
-import com.vihaanthat.microservices.inventory.repository.InventoryRepository;
+import com.vihaanthat.microservices.inventory.dto.ReservationRequest;
+import com.vihaanthat.microservices.inventory.dto.ReservationResponse;
+import com.vihaanthat.microservices.inventory.dto.StockAdjustmentResponse;
+import com.vihaanthat.microservices.inventory.dto.StockBucketsResponse;
+import com.vihaanthat.microservices.inventory.dto.StockCheckResponse;
+import com.vihaanthat.microservices.inventory.dto.StockLine;
+import com.vihaanthat.microservices.inventory.model.ReservationStatus;
 import com.vihaanthat.microservices.inventory.service.InventoryService;
+import com.vihaanthat.microservices.inventory.service.StockAdjustmentService;
+import com.vihaanthat.microservices.inventory.service.StockBucketService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/inventory")
 @RequiredArgsConstructor
 
 public class InventoryController {
     private final InventoryService inventoryService;
+    private final StockBucketService stockBucketService;
+    private final StockAdjustmentService stockAdjustmentService;
 
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
@@ -20,5 +36,57 @@ public class InventoryController {
         return inventoryService.isInStock(skuCode, quantity);
     }
 
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.OK)
+    public List<StockCheckResponse> checkStock(@RequestBody List<StockLine> lines) {
+        return inventoryService.checkStock(lines);
+    }
+
+    // An Idempotency-Key (at most 36 characters) makes the reservation safe to retry: it is used as the
+    // reservation id, and a repeated key answers with the reservation already made
+    @PostMapping("/reservations")
+    public ResponseEntity<ReservationResponse> reserve(@RequestBody ReservationRequest reservationRequest,
+                                                       @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+        return withStatus(inventoryService.reserve(reservationRequest, idempotencyKey), ReservationStatus.RESERVED,
+                HttpStatus.CREATED);
+    }
+
+    @PostMapping("/reservations/batch")
+    public ResponseEntity<ReservationResponse> reserveAll(@RequestBody List<StockLine> lines,
+                                                          @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+        return withStatus(inventoryService.reserveAll(lines, idempotencyKey), ReservationStatus.RESERVED,
+                HttpStatus.CREATED);
+    }
+
+    @PostMapping("/reservations/{reservationId}/confirm")
+    public ResponseEntity<ReservationResponse> confirm(@PathVariable String reservationId) {
+        return withStatus(inventoryService.confirm(reservationId), ReservationStatus.CONFIRMED, HttpStatus.OK);
+    }
+
+    @PostMapping("/reservations/{reservationId}/release")
+    public ResponseEntity<ReservationResponse> release(@PathVariable String reservationId) {
+        return withStatus(inventoryService.release(reservationId), ReservationStatus.RELEASED, HttpStatus.OK);
+    }
+
+    // Warehouse restock/adjustment feed as a JSON array or NDJSON, streamed; one outcome per line
+    @PostMapping(value = "/adjustments", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    @ResponseStatus(HttpStatus.OK)
+    public StockAdjustmentResponse adjustStock(HttpServletRequest request) throws IOException {
+        return stockAdjustmentService.adjustStock(request.getInputStream());
+    }
 
+    // Splits (or merges) a hot SKU's stock into the given number of buckets
+    @PutMapping("/{skuCode}/buckets")
+    @ResponseStatus(HttpStatus.OK)
+    public StockBucketsResponse splitStock(@PathVariable String skuCode, @RequestParam int count) {
+        return stockBucketService.split(skuCode, count);
+    }
+
+    // A reservation that did not end up in the requested state (no stock, already released, expired...)
+    // is reported as a conflict, with the current state in the body.
+    private static ResponseEntity<ReservationResponse> withStatus(ReservationResponse reservation,
+                                                                  ReservationStatus expected, HttpStatus onSuccess) {
+        HttpStatus status = reservation.status() == expected ? onSuccess : HttpStatus.CONFLICT;
+        return ResponseEntity.status(status).body(reservation);
+    }
 }
@@ -0,0 +1,10 @@
+package com.vihaanthat.microservices.inventory.dto;
+
+import com.vihaanthat.microservices.inventory.model.ReservationStatus;
+
+import java.time.Instant;
+import java.util.List;
+
+public record ReservationResponse(String reservationId, ReservationStatus status, Instant expiresAt,
+                                  List<StockLine> lines) {
+}
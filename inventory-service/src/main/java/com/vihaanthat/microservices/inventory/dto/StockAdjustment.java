@@ -0,0 +1,5 @@
+package com.vihaanthat.microservices.inventory.dto;
+
+// Either delta (added to the current stock, may be negative) or quantity (the new absolute stock)
+public record StockAdjustment(String skuCode, Integer delta, Integer quantity) {
+}
@@ -0,0 +1,15 @@
+package com.vihaanthat.microservices.inventory.dto;
+
+import java.util.List;
+
+// One outcome per adjustment line; index is the line's position in the request body, counted from 0
+public record StockAdjustmentResponse(int received, int applied, int rejected, List<Outcome> outcomes) {
+
+    public enum Status {
+        CREATED, UPDATED, REJECTED
+    }
+
+    // quantity is the SKU's stock after the line was applied, null when rejected
+    public record Outcome(int index, String skuCode, Status status, Integer quantity, String message) {
+    }
+}
@@ -0,0 +1,6 @@
+package com.vihaanthat.microservices.inventory.dto;
+
+import java.util.List;
+
+public record StockBucketsResponse(String skuCode, List<Integer> bucketQuantities) {
+}
@@ -0,0 +1,4 @@
+package com.vihaanthat.microservices.inventory.dto;
+
+public record StockCheckResponse(String skuCode, Integer quantity, boolean inStock) {
+}
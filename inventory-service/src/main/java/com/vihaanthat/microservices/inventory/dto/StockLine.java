@@ -0,0 +1,4 @@
+package com.vihaanthat.microservices.inventory.dto;
+
+public record StockLine(String skuCode, Integer quantity) {
+}
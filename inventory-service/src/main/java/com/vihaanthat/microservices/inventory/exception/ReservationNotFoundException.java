@@ -0,0 +1,7 @@
+package com.vihaanthat.microservices.inventory.exception;
+
+public class ReservationNotFoundException extends RuntimeException {
+    public ReservationNotFoundException(String reservationId) {
+        super("Reservation " + reservationId + " not found");
+    }
+}
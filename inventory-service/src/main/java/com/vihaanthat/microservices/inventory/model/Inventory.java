@@ -18,4 +18,10 @@ public class Inventory {
     private Long id;
     private String skuCode;
     private Integer quantity;
+    // 0 unless the SKU's stock is split across several rows, see StockBucketService
+    private int bucket;
+
+    public Inventory(Long id, String skuCode, Integer quantity) {
+        this(id, skuCode, quantity, 0);
+    }
 }
@@ -0,0 +1,28 @@
+package com.vihaanthat.microservices.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "t_inventory_reservation")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class InventoryReservation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String reservationId;
+    private String skuCode;
+    private Integer quantity;
+    @Enumerated(EnumType.STRING)
+    private ReservationStatus status;
+    private Instant expiresAt;
+    private Instant createdAt;
+}
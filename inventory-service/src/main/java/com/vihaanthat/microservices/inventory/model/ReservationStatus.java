@@ -0,0 +1,9 @@
+package com.vihaanthat.microservices.inventory.model;
+
+public enum ReservationStatus {
+    RESERVED,
+    CONFIRMED,
+    RELEASED,
+    EXPIRED,
+    REJECTED
+}
@@ -0,0 +1,116 @@
+package com.vihaanthat.microservices.inventory.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+// Write-behind side of the in-memory inventory ledger. Its reads run in new read-write transactions, even when
+// called from a read-only one: the ledger must be loaded from the primary, never from a lagging read replica.
+@Repository
+@RequiredArgsConstructor
+public class InventoryLedgerRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    private record Bucket(int bucket, int quantity) {
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Map<String, Integer> loadStock() {
+        Map<String, Integer> stock = new HashMap<>();
+        jdbcTemplate.query("SELECT sku_code, SUM(quantity) FROM t_inventory GROUP BY sku_code",
+                row -> {
+                    stock.put(row.getString(1), row.getInt(2));
+                });
+        return stock;
+    }
+
+    // Also called from inside isInStock/checkStock, where it takes a second connection; only SKUs the ledger has
+    // never seen get here, and a miss is remembered, so that is rare
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Optional<Integer> loadStock(String skuCode) {
+        Integer quantity = jdbcTemplate.queryForObject(
+                "SELECT SUM(quantity) FROM t_inventory WHERE sku_code = ?", Integer.class, skuCode);
+        return Optional.ofNullable(quantity);
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public long loadCheckpoint() {
+        Long segment = jdbcTemplate.queryForObject("SELECT segment FROM t_inventory_ledger_checkpoint WHERE id = 1",
+                Long.class);
+        return segment == null ? 0 : segment;
+    }
+
+    /**
+     * Applies the summed deltas of every journal segment up to {@code segment} and records that segment as
+     * the checkpoint, in one transaction, in SKU order. A gain goes to bucket 0 and the bucket rebalancer evens
+     * it out. A loss is taken from a split SKU's buckets in bucket order, each emptied before the next, so no
+     * bucket is taken below zero while the SKU still has the stock in other buckets.
+     */
+    @Transactional
+    public void applyDeltas(Map<String, Integer> deltasBySku, long segment) {
+        Map<String, Integer> deltas = new TreeMap<>();
+        deltasBySku.forEach((skuCode, delta) -> {
+            if (delta != 0) {
+                deltas.put(skuCode, delta);
+            }
+        });
+        List<String> losing = deltas.entrySet()
+                .stream()
+                .filter(delta -> delta.getValue() < 0)
+                .map(Map.Entry::getKey)
+                .toList();
+        Map<String, List<Bucket>> buckets = lockBuckets(losing);
+        List<Object[]> updates = new ArrayList<>();
+        deltas.forEach((skuCode, delta) -> {
+            List<Bucket> skuBuckets = buckets.get(skuCode);
+            if (delta > 0 || skuBuckets == null) {
+                updates.add(new Object[]{delta, skuCode, 0});
+                return;
+            }
+            int remaining = -delta;
+            for (int i = 0; i < skuBuckets.size() && remaining > 0; i++) {
+                Bucket bucket = skuBuckets.get(i);
+                // Whatever the buckets cannot cover goes to the last one; t_inventory was then changed behind
+                // the ledger's back and the SKU's total is short either way
+                int taken = i == skuBuckets.size() - 1 ? remaining : Math.min(remaining, Math.max(bucket.quantity(), 0));
+                if (taken > 0) {
+                    updates.add(new Object[]{-taken, skuCode, bucket.bucket()});
+                    remaining -= taken;
+                }
+            }
+        });
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE t_inventory SET quantity = quantity + ? WHERE sku_code = ? AND bucket = ?",
+                    updates);
+        }
+        jdbcTemplate.update("UPDATE t_inventory_ledger_checkpoint SET segment = ? WHERE id = 1", segment);
+    }
+
+    // Each SKU's buckets in bucket order, locked against reservations and the rebalancer
+    private Map<String, List<Bucket>> lockBuckets(List<String> skuCodes) {
+        Map<String, List<Bucket>> buckets = new HashMap<>();
+        if (skuCodes.isEmpty()) {
+            return buckets;
+        }
+        StringJoiner placeholders = new StringJoiner(", ", "(", ")");
+        skuCodes.forEach(skuCode -> placeholders.add("?"));
+        jdbcTemplate.query("SELECT sku_code, bucket, quantity FROM t_inventory WHERE sku_code IN " + placeholders
+                        + " ORDER BY sku_code, bucket FOR UPDATE",
+                row -> {
+                    buckets.computeIfAbsent(row.getString(1), skuCode -> new ArrayList<>())
+                            .add(new Bucket(row.getInt(2), row.getInt(3)));
+                },
+                skuCodes.toArray());
+        return buckets;
+    }
+}
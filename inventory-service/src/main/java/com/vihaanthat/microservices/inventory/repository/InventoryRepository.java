@@ -1,8 +1,35 @@
 package com.vihaanthat.microservices.inventory.repository;
 
 import com.vihaanthat.microservices.inventory.model.Inventory;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface InventoryRepository extends JpaRepository<Inventory, Long> {
-    boolean existsBySkuCodeAndQuantityIsGreaterThanEqual(String skuCode, int quantity);
+import java.util.Collection;
+import java.util.List;
+
+public interface InventoryRepository extends JpaRepository<Inventory, Long>, InventoryRepositoryCustom {
+    // Summed over the SKU's buckets
+    @Query("select case when coalesce(sum(i.quantity), 0) >= :quantity then true else false end "
+            + "from Inventory i where i.skuCode = :skuCode")
+    boolean hasStock(@Param("skuCode") String skuCode, @Param("quantity") int quantity);
+
+    List<Inventory> findBySkuCodeIn(Collection<String> skuCodes);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Inventory> findBySkuCodeOrderByBucketAsc(String skuCode);
+
+    // Split SKUs where some bucket holds less than half of its fair share of the SKU's stock
+    @Query(value = "SELECT sku_code FROM t_inventory GROUP BY sku_code "
+            + "HAVING COUNT(*) > 1 AND MIN(quantity) * COUNT(*) * 2 < SUM(quantity) LIMIT :limit", nativeQuery = true)
+    List<String> findUnbalancedSkuCodes(@Param("limit") int limit);
+
+    // Returned stock goes to the SKU's emptiest bucket
+    @Modifying
+    @Query(value = "UPDATE t_inventory SET quantity = quantity + :quantity WHERE sku_code = :skuCode "
+            + "ORDER BY quantity LIMIT 1", nativeQuery = true)
+    int incrementStock(@Param("skuCode") String skuCode, @Param("quantity") int quantity);
 }
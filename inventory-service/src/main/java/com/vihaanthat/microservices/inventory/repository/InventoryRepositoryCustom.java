@@ -0,0 +1,11 @@
+package com.vihaanthat.microservices.inventory.repository;
+
+import java.util.Map;
+
+public interface InventoryRepositoryCustom {
+    /**
+     * Takes every quantity in {@code quantitiesBySku} from the SKUs' stock buckets. Returns false when a SKU
+     * is unknown or short; callers must then roll back, as other SKUs may already have been decremented.
+     */
+    boolean decrementStock(Map<String, Integer> quantitiesBySku);
+}
@@ -0,0 +1,125 @@
+package com.vihaanthat.microservices.inventory.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class InventoryRepositoryCustomImpl implements InventoryRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private record Bucket(long id, int quantity) {
+    }
+
+    // Every decrement is a conditional UPDATE so concurrent reservations can never take the same units:
+    // the row lock serializes writers and the WHERE clause re-checks stock. The bucket rows are located with a
+    // non-locking read first, so a split SKU's reservations spread their row locks over its buckets.
+    @Override
+    public boolean decrementStock(Map<String, Integer> quantitiesBySku) {
+        // Sorted so that concurrent multi-SKU reservations always lock rows in the same order
+        Map<String, Integer> lines = new TreeMap<>(quantitiesBySku);
+        Map<String, List<Bucket>> bucketsBySku = findBuckets(lines.keySet());
+        if (bucketsBySku.size() < lines.size()) {
+            return false;
+        }
+        if (bucketsBySku.values().stream().allMatch(buckets -> buckets.size() == 1)) {
+            return decrementSingleBuckets(lines, bucketsBySku);
+        }
+        for (Map.Entry<String, Integer> line : lines.entrySet()) {
+            if (!decrementFromBuckets(line.getKey(), line.getValue(), bucketsBySku.get(line.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Unsplit SKUs only: one conditional UPDATE for all of them
+    private boolean decrementSingleBuckets(Map<String, Integer> lines, Map<String, List<Bucket>> bucketsBySku) {
+        StringJoiner quantityCase = new StringJoiner(" ", "CASE id ", " END");
+        StringJoiner ids = new StringJoiner(", ", "(", ")");
+        for (int i = 0; i < lines.size(); i++) {
+            quantityCase.add("WHEN :id" + i + " THEN :qty" + i);
+            ids.add(":id" + i);
+        }
+        Query update = entityManager.createNativeQuery("UPDATE t_inventory SET quantity = quantity - " + quantityCase
+                + " WHERE id IN " + ids + " AND quantity >= " + quantityCase);
+        int i = 0;
+        for (Map.Entry<String, Integer> line : lines.entrySet()) {
+            update.setParameter("id" + i, bucketsBySku.get(line.getKey()).get(0).id());
+            update.setParameter("qty" + i, line.getValue());
+            i++;
+        }
+        return update.executeUpdate() == lines.size();
+    }
+
+    // Tries the buckets that looked big enough in random order, then falls back to locking every bucket of
+    // the SKU and taking the quantity from several of them
+    private boolean decrementFromBuckets(String skuCode, int quantity, List<Bucket> snapshot) {
+        if (snapshot.stream().mapToLong(Bucket::quantity).sum() < quantity) {
+            return false;
+        }
+        List<Bucket> candidates = new ArrayList<>(snapshot.stream().filter(bucket -> bucket.quantity() >= quantity).toList());
+        Collections.shuffle(candidates, ThreadLocalRandom.current());
+        for (Bucket candidate : candidates) {
+            if (decrementBucket(candidate.id(), quantity)) {
+                return true;
+            }
+        }
+        List<?> rows = entityManager.createNativeQuery(
+                        "SELECT id, quantity FROM t_inventory WHERE sku_code = :skuCode ORDER BY bucket FOR UPDATE")
+                .setParameter("skuCode", skuCode)
+                .getResultList();
+        List<Bucket> locked = rows.stream()
+                .map(row -> toBucket((Object[]) row))
+                .toList();
+        if (locked.stream().mapToLong(Bucket::quantity).sum() < quantity) {
+            return false;
+        }
+        int remaining = quantity;
+        for (Bucket bucket : locked) {
+            int taken = Math.min(remaining, Math.max(bucket.quantity(), 0));
+            if (taken > 0) {
+                decrementBucket(bucket.id(), taken);
+                remaining -= taken;
+            }
+        }
+        return true;
+    }
+
+    private boolean decrementBucket(long id, int quantity) {
+        return entityManager.createNativeQuery(
+                        "UPDATE t_inventory SET quantity = quantity - :quantity WHERE id = :id AND quantity >= :quantity")
+                .setParameter("quantity", quantity)
+                .setParameter("id", id)
+                .executeUpdate() == 1;
+    }
+
+    private Map<String, List<Bucket>> findBuckets(Set<String> skuCodes) {
+        List<?> rows = entityManager.createNativeQuery(
+                        "SELECT sku_code, id, quantity FROM t_inventory WHERE sku_code IN (:skuCodes)")
+                .setParameter("skuCodes", skuCodes)
+                .getResultList();
+        Map<String, List<Bucket>> bucketsBySku = new LinkedHashMap<>();
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            bucketsBySku.computeIfAbsent((String) columns[0], skuCode -> new ArrayList<>())
+                    .add(toBucket(new Object[]{columns[1], columns[2]}));
+        }
+        return bucketsBySku;
+    }
+
+    private static Bucket toBucket(Object[] columns) {
+        return new Bucket(((Number) columns[0]).longValue(), columns[1] == null ? 0 : ((Number) columns[1]).intValue());
+    }
+}
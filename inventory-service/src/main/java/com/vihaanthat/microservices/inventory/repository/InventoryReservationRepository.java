@@ -0,0 +1,30 @@
+package com.vihaanthat.microservices.inventory.repository;
+
+import com.vihaanthat.microservices.inventory.model.InventoryReservation;
+import com.vihaanthat.microservices.inventory.model.ReservationStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface InventoryReservationRepository extends JpaRepository<InventoryReservation, Long> {
+    List<InventoryReservation> findByReservationId(String reservationId);
+
+    List<InventoryReservation> findTop500ByStatusAndExpiresAtBefore(ReservationStatus status, Instant now);
+
+    // Conditional state transition over all lines of a reservation: only one caller can move it out of
+    // a given state, which keeps confirm/release/expiry idempotent and returns stock at most once.
+    @Modifying(clearAutomatically = true)
+    @Query("update InventoryReservation r set r.status = :to where r.reservationId = :reservationId and r.status in :from")
+    int transition(@Param("reservationId") String reservationId, @Param("from") Collection<ReservationStatus> from,
+                   @Param("to") ReservationStatus to);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update InventoryReservation r set r.status = :to where r.reservationId = :reservationId and r.status = :from and r.expiresAt > :now")
+    int transitionIfNotExpired(@Param("reservationId") String reservationId, @Param("from") ReservationStatus from,
+                               @Param("to") ReservationStatus to, @Param("now") Instant now);
+}
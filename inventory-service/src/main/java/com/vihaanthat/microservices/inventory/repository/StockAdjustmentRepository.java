@@ -0,0 +1,74 @@
+package com.vihaanthat.microservices.inventory.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+// Bulk restock and adjustment writes. Statements are batched; with rewriteBatchedStatements on the JDBC URL
+// the upserts of a batch go to MySQL as one multi-row INSERT ... ON DUPLICATE KEY UPDATE.
+@Repository
+@RequiredArgsConstructor
+public class StockAdjustmentRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public record SkuStock(int quantity, int buckets) {
+    }
+
+    /**
+     * Locks every bucket of the given SKUs, in sku_code and bucket order like reservations do, and returns
+     * each existing SKU's total quantity. Must run inside a transaction.
+     */
+    public Map<String, SkuStock> lockStock(Collection<String> skuCodes) {
+        StringJoiner placeholders = new StringJoiner(", ", "(", ")");
+        skuCodes.forEach(skuCode -> placeholders.add("?"));
+        Map<String, SkuStock> stock = new HashMap<>();
+        jdbcTemplate.query("SELECT sku_code, quantity FROM t_inventory WHERE sku_code IN " + placeholders
+                        + " ORDER BY sku_code, bucket FOR UPDATE",
+                row -> {
+                    stock.merge(row.getString(1), new SkuStock(row.getInt(2), 1),
+                            (a, b) -> new SkuStock(a.quantity() + b.quantity(), a.buckets() + b.buckets()));
+                },
+                skuCodes.toArray());
+        return stock;
+    }
+
+    /**
+     * Sets each SKU's total quantity, creating SKUs that do not exist yet. A split SKU gets its whole stock
+     * in bucket 0 and its other buckets emptied; the bucket rebalancer spreads it out again. The SKUs in
+     * {@code incrementSkuCodes} were not locked, since they did not exist yet, and their quantity is a sum of
+     * deltas: it is added to the row, so a feed that created the same SKU concurrently does not lose its stock.
+     */
+    public void writeStock(Map<String, Integer> quantitiesBySku, Collection<String> splitSkuCodes,
+                           Collection<String> incrementSkuCodes) {
+        if (!splitSkuCodes.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE t_inventory SET quantity = 0 WHERE sku_code = ? AND bucket > 0",
+                    splitSkuCodes.stream().map(skuCode -> new Object[]{skuCode}).toList());
+        }
+        List<Object[]> upserts = new ArrayList<>();
+        List<Object[]> increments = new ArrayList<>();
+        quantitiesBySku.forEach((skuCode, quantity) ->
+                (incrementSkuCodes.contains(skuCode) ? increments : upserts).add(new Object[]{skuCode, quantity}));
+        // Row alias rather than VALUES(), which MySQL deprecated in ON DUPLICATE KEY UPDATE as of 8.0.20
+        if (!upserts.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO t_inventory (sku_code, bucket, quantity) VALUES (?, 0, ?) AS new "
+                    + "ON DUPLICATE KEY UPDATE quantity = new.quantity", upserts);
+        }
+        if (!increments.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO t_inventory (sku_code, bucket, quantity) VALUES (?, 0, ?) AS new "
+                    + "ON DUPLICATE KEY UPDATE quantity = quantity + new.quantity", increments);
+        }
+    }
+
+    // With the inventory ledger enabled stock is adjusted in the ledger; new SKUs only need their row
+    public void createMissing(Collection<String> skuCodes) {
+        jdbcTemplate.batchUpdate("INSERT IGNORE INTO t_inventory (sku_code, bucket, quantity) VALUES (?, 0, 0)",
+                skuCodes.stream().map(skuCode -> new Object[]{skuCode}).toList());
+    }
+}
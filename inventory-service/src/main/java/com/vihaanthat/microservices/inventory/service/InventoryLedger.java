@@ -0,0 +1,298 @@
+package com.vihaanthat.microservices.inventory.service;
+
+import com.vihaanthat.microservices.inventory.repository.InventoryLedgerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Authoritative per-SKU stock counters held in memory, for flash sales where row locks on t_inventory cap
+ * throughput. Counters live in a ConcurrentHashMap (lock-striped per bin) and are decremented with CAS,
+ * so reservations on different SKUs never contend and reservations on one SKU only retry on a lost CAS.
+ * <p>
+ * Every change is appended to a local {@link LedgerJournal} and made durable before the caller returns.
+ * Summed deltas are written behind to t_inventory on a fixed interval, together with a checkpoint of the
+ * last applied journal segment. On startup, segments past the checkpoint are replayed into MySQL and the
+ * counters are warmed from t_inventory; SKUs added later are loaded on first use. A SKU that is not in
+ * t_inventory either is remembered as unknown for {@code inventory.ledger.unknown-sku-ttl}, so repeated
+ * lookups of it do not each query MySQL. SKUs are loaded before a mutation takes the rotation lock, so a
+ * slow query never holds up the flush.
+ * <p>
+ * While enabled, the ledger owns stock: t_inventory lags it by up to one flush interval and must not be
+ * changed behind its back. Only one inventory-service instance may run with the ledger enabled.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.ledger.enabled", havingValue = "true")
+@Slf4j
+public class InventoryLedger implements InitializingBean, DisposableBean {
+    private final InventoryLedgerRepository ledgerRepository;
+    private final LedgerJournal journal;
+    private final ConcurrentHashMap<String, AtomicInteger> counters = new ConcurrentHashMap<>();
+    // SKUs found in neither the counters nor t_inventory, with the System.nanoTime() their miss expires at
+    private final ConcurrentHashMap<String, Long> unknownUntil = new ConcurrentHashMap<>();
+    private final long unknownSkuTtlNanos;
+    // Mutations hold the read lock while they journal and record deltas; the flush takes the write lock
+    // only to rotate the journal segment and swap the delta map, so both always describe the same changes
+    private final ReentrantReadWriteLock rotationLock = new ReentrantReadWriteLock();
+    private volatile ConcurrentHashMap<String, Integer> unflushed = new ConcurrentHashMap<>();
+    // A lock rather than synchronized: the flush writes to MySQL on a virtual thread, which must not pin its carrier
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Guarded by flushLock
+    private PendingFlush pending;
+
+    private record PendingFlush(Map<String, Integer> deltasBySku, long segment) {
+    }
+
+    public InventoryLedger(InventoryLedgerRepository ledgerRepository,
+                           @Value("${inventory.ledger.journal-dir}") Path journalDir,
+                           @Value("${inventory.ledger.unknown-sku-ttl:5s}") Duration unknownSkuTtl) {
+        this.ledgerRepository = ledgerRepository;
+        if (journalDir.toString().isBlank()) {
+            throw new IllegalStateException("inventory.ledger.journal-dir must point at a persistent directory");
+        }
+        this.journal = new LedgerJournal(journalDir);
+        this.unknownSkuTtlNanos = unknownSkuTtl.toNanos();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        long checkpoint = ledgerRepository.loadCheckpoint();
+        LedgerJournal.RecoveredDeltas recovered = journal.recover(checkpoint);
+        if (recovered.lastSegment() > checkpoint) {
+            ledgerRepository.applyDeltas(recovered.deltasBySku(), recovered.lastSegment());
+            log.info("Replayed {} SKU delta(s) from ledger journal segments {}..{}",
+                    recovered.deltasBySku().size(), checkpoint + 1, recovered.lastSegment());
+        }
+        journal.deleteUpTo(recovered.lastSegment());
+        ledgerRepository.loadStock().forEach((skuCode, quantity) -> counters.put(skuCode, new AtomicInteger(quantity)));
+        journal.open(recovered.lastSegment() + 1);
+        log.info("Inventory ledger warmed with {} SKU(s)", counters.size());
+    }
+
+    public Optional<Integer> available(String skuCode) {
+        AtomicInteger counter = counter(skuCode);
+        return counter == null ? Optional.empty() : Optional.of(counter.get());
+    }
+
+    // For SKUs whose t_inventory rows were just created: loads them even if they are remembered as unknown
+    public void loadCreated(Collection<String> skuCodes) {
+        skuCodes.forEach(skuCode -> {
+            unknownUntil.remove(skuCode);
+            counter(skuCode);
+        });
+    }
+
+    /**
+     * Takes every requested quantity or none. Returns false, leaving all counters as they were, when a SKU
+     * is unknown or short.
+     */
+    public boolean tryReserve(Map<String, Integer> requested) {
+        requested.keySet().forEach(this::counter);
+        rotationLock.readLock().lock();
+        LedgerJournal.Position position;
+        try {
+            List<Map.Entry<String, Integer>> taken = new ArrayList<>();
+            for (Map.Entry<String, Integer> line : requested.entrySet()) {
+                AtomicInteger counter = counters.get(line.getKey());
+                if (counter == null || !tryDecrement(counter, line.getValue())) {
+                    taken.forEach(undo -> counters.get(undo.getKey()).addAndGet(undo.getValue()));
+                    return false;
+                }
+                taken.add(line);
+            }
+            Map<String, Integer> deltas = new HashMap<>();
+            requested.forEach((skuCode, quantity) -> deltas.put(skuCode, -quantity));
+            position = record(deltas, () -> taken.forEach(undo -> counters.get(undo.getKey()).addAndGet(undo.getValue())));
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+        journal.awaitDurable(position);
+        return true;
+    }
+
+    public void release(Map<String, Integer> returned) {
+        returned.keySet().forEach(this::counter);
+        rotationLock.readLock().lock();
+        LedgerJournal.Position position;
+        try {
+            Map<String, Integer> deltas = new HashMap<>();
+            returned.forEach((skuCode, quantity) -> {
+                AtomicInteger counter = counters.get(skuCode);
+                if (counter == null) {
+                    log.warn("Ignoring returned stock for unknown SKU {}", skuCode);
+                    return;
+                }
+                counter.addAndGet(quantity);
+                deltas.merge(skuCode, quantity, Integer::sum);
+            });
+            if (deltas.isEmpty()) {
+                return;
+            }
+            position = record(deltas, () -> deltas.forEach((skuCode, quantity) -> counters.get(skuCode).addAndGet(-quantity)));
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+        journal.awaitDurable(position);
+    }
+
+    public record Adjustment(String skuCode, IntUnaryOperator update) {
+    }
+
+    /**
+     * Applies restock and adjustment updates in order, journaling their net deltas with a single sync.
+     * Returns each update's resulting quantity, or null when its SKU is unknown or the update would take
+     * the SKU below zero; such an update leaves the counter unchanged.
+     */
+    public List<Integer> adjust(List<Adjustment> adjustments) {
+        adjustments.forEach(adjustment -> counter(adjustment.skuCode()));
+        rotationLock.readLock().lock();
+        LedgerJournal.Position position;
+        List<Integer> results = new ArrayList<>();
+        try {
+            Map<String, Integer> deltas = new HashMap<>();
+            for (Adjustment adjustment : adjustments) {
+                AtomicInteger counter = counters.get(adjustment.skuCode());
+                Integer previous = counter == null ? null : tryUpdate(counter, adjustment.update());
+                if (previous == null) {
+                    results.add(null);
+                    continue;
+                }
+                int next = adjustment.update().applyAsInt(previous);
+                deltas.merge(adjustment.skuCode(), next - previous, Integer::sum);
+                results.add(next);
+            }
+            deltas.values().removeIf(delta -> delta == 0);
+            if (deltas.isEmpty()) {
+                return results;
+            }
+            position = record(deltas, () -> deltas.forEach((skuCode, delta) -> counters.get(skuCode).addAndGet(-delta)));
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+        journal.awaitDurable(position);
+        return results;
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.ledger.flush-interval-ms:200}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            rotateAndApply();
+        } finally {
+            flushLock.unlock();
+        }
+        long now = System.nanoTime();
+        unknownUntil.values().removeIf(until -> until - now <= 0);
+    }
+
+    private void rotateAndApply() {
+        rotationLock.writeLock().lock();
+        try {
+            if (!journal.isEmpty()) {
+                long segment = journal.rotate();
+                Map<String, Integer> deltas = unflushed;
+                unflushed = new ConcurrentHashMap<>();
+                if (pending != null) {
+                    pending.deltasBySku().forEach((skuCode, delta) -> deltas.merge(skuCode, delta, Integer::sum));
+                }
+                pending = new PendingFlush(deltas, segment);
+            }
+        } finally {
+            rotationLock.writeLock().unlock();
+        }
+        if (pending == null) {
+            return;
+        }
+        try {
+            ledgerRepository.applyDeltas(pending.deltasBySku(), pending.segment());
+            journal.deleteUpTo(pending.segment());
+            log.debug("Flushed ledger deltas for {} SKU(s) up to segment {}", pending.deltasBySku().size(), pending.segment());
+            pending = null;
+        } catch (RuntimeException e) {
+            // The journal still holds these deltas; the next flush retries them together with newer ones
+            log.warn("Failed to flush ledger deltas up to segment {}", pending.segment(), e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+        journal.close();
+    }
+
+    private LedgerJournal.Position record(Map<String, Integer> deltas, Runnable undo) {
+        LedgerJournal.Position position;
+        try {
+            position = journal.append(deltas);
+        } catch (RuntimeException e) {
+            undo.run();
+            throw e;
+        }
+        deltas.forEach((skuCode, delta) -> unflushed.merge(skuCode, delta, Integer::sum));
+        return position;
+    }
+
+    // Known SKUs are served from memory; a SKU inserted after warm-up is loaded once from t_inventory, and a
+    // SKU missing there is not looked up again until its miss expires
+    private AtomicInteger counter(String skuCode) {
+        AtomicInteger counter = counters.get(skuCode);
+        if (counter != null) {
+            return counter;
+        }
+        Long until = unknownUntil.get(skuCode);
+        if (until != null && until - System.nanoTime() > 0) {
+            return null;
+        }
+        Optional<Integer> quantity = ledgerRepository.loadStock(skuCode);
+        if (quantity.isEmpty()) {
+            unknownUntil.put(skuCode, System.nanoTime() + unknownSkuTtlNanos);
+            return null;
+        }
+        unknownUntil.remove(skuCode);
+        return counters.computeIfAbsent(skuCode, key -> new AtomicInteger(quantity.get()));
+    }
+
+    // Returns the quantity the update was applied to, or null when it would go below zero
+    private static Integer tryUpdate(AtomicInteger counter, IntUnaryOperator update) {
+        while (true) {
+            int current = counter.get();
+            int next = update.applyAsInt(current);
+            if (next < 0) {
+                return null;
+            }
+            if (counter.compareAndSet(current, next)) {
+                return current;
+            }
+        }
+    }
+
+    private static boolean tryDecrement(AtomicInteger counter, int quantity) {
+        while (true) {
+            int current = counter.get();
+            if (current < quantity) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current - quantity)) {
+                return true;
+            }
+        }
+    }
+}
@@ -1,19 +1,238 @@
 package com.vihaanthat.microservices.inventory.service;
 
+import com.vihaanthat.microservices.inventory.dto.ReservationRequest;
+import com.vihaanthat.microservices.inventory.dto.ReservationResponse;
+import com.vihaanthat.microservices.inventory.dto.StockCheckResponse;
+import com.vihaanthat.microservices.inventory.dto.StockLine;
+import com.vihaanthat.microservices.inventory.exception.ReservationNotFoundException;
+import com.vihaanthat.microservices.inventory.model.Inventory;
+import com.vihaanthat.microservices.inventory.model.InventoryReservation;
+import com.vihaanthat.microservices.inventory.model.ReservationStatus;
 import com.vihaanthat.microservices.inventory.repository.InventoryRepository;
+import com.vihaanthat.microservices.inventory.repository.InventoryReservationRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 
 public class InventoryService {
     private final InventoryRepository inventoryRepository;
+    private final InventoryReservationRepository reservationRepository;
+    private final StockLevelPublisher stockLevelPublisher;
+    // Present when inventory.ledger.enabled=true; it then owns stock instead of t_inventory
+    private final Optional<InventoryLedger> inventoryLedger;
+
+    @Value("${inventory.reservation.ttl:5m}")
+    private Duration reservationTtl;
 
     @Transactional(readOnly = true)
     public boolean isInStock(String skuCode, Integer quantity) {
-        return inventoryRepository.existsBySkuCodeAndQuantityIsGreaterThanEqual(skuCode,quantity);
+        if (inventoryLedger.isPresent()) {
+            return inventoryLedger.get().available(skuCode).filter(available -> available >= quantity).isPresent();
+        }
+        return inventoryRepository.hasStock(skuCode, quantity);
+    }
+
+    @Transactional(readOnly = true)
+    public List<StockCheckResponse> checkStock(List<StockLine> lines) {
+        Map<String, Integer> requested = mergeLines(lines);
+        Map<String, Integer> available = availableStock(requested.keySet());
+        return requested.entrySet()
+                .stream()
+                .map(line -> new StockCheckResponse(line.getKey(), line.getValue(),
+                        available.getOrDefault(line.getKey(), 0) >= line.getValue()))
+                .toList();
+    }
+
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public ReservationResponse reserve(ReservationRequest reservationRequest) {
+        return reserve(reservationRequest, null);
+    }
+
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public ReservationResponse reserve(ReservationRequest reservationRequest, String idempotencyKey) {
+        return reserveAll(List.of(new StockLine(reservationRequest.skuCode(), reservationRequest.quantity())),
+                idempotencyKey);
+    }
+
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public ReservationResponse reserveAll(List<StockLine> lines) {
+        return reserveAll(lines, null);
+    }
+
+    // All-or-nothing: either every line is reserved under one reservation id, or nothing is.
+    // READ COMMITTED so that a bucket whose conditional UPDATE did not match is not left locked while the
+    // reservation moves on to the SKU's other buckets.
+    // With an Idempotency-Key the key becomes the reservation id, so a retried request gets the reservation
+    // it already made instead of a second one; two racing requests collide on the reservation line unique key.
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public ReservationResponse reserveAll(List<StockLine> lines, String idempotencyKey) {
+        Map<String, Integer> requested = mergeLines(lines);
+        if (idempotencyKey != null) {
+            if (idempotencyKey.isBlank() || idempotencyKey.length() > 36) {
+                throw new IllegalArgumentException("Idempotency-Key must be between 1 and 36 characters");
+            }
+            List<InventoryReservation> existing = reservationRepository.findByReservationId(idempotencyKey);
+            if (!existing.isEmpty()) {
+                log.info("Replaying reservation {}", idempotencyKey);
+                return mapToReservationResponse(existing);
+            }
+        }
+        if (!decrementStock(requested)) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return new ReservationResponse(null, ReservationStatus.REJECTED, null, toStockLines(requested));
+        }
+        String reservationId = idempotencyKey != null ? idempotencyKey : UUID.randomUUID().toString();
+        Instant now = Instant.now();
+        List<InventoryReservation> reservation = requested.entrySet()
+                .stream()
+                .map(line -> new InventoryReservation(null, reservationId, line.getKey(), line.getValue(),
+                        ReservationStatus.RESERVED, now.plus(reservationTtl), now))
+                .toList();
+        reservationRepository.saveAll(reservation);
+        stockLevelPublisher.stockChanged(requested.keySet());
+        return mapToReservationResponse(reservation);
+    }
+
+    @Transactional
+    public ReservationResponse confirm(String reservationId) {
+        reservationRepository.transitionIfNotExpired(reservationId, ReservationStatus.RESERVED,
+                ReservationStatus.CONFIRMED, Instant.now());
+        return mapToReservationResponse(findReservation(reservationId));
+    }
+
+    // A confirmed reservation can still be released by its owner: order-service confirms before its order
+    // commits, and hands the stock back if that commit then fails
+    @Transactional
+    public ReservationResponse release(String reservationId) {
+        return returnStock(reservationId, List.of(ReservationStatus.RESERVED, ReservationStatus.CONFIRMED),
+                ReservationStatus.RELEASED);
+    }
+
+    @Transactional
+    public ReservationResponse expire(String reservationId) {
+        return returnStock(reservationId, List.of(ReservationStatus.RESERVED), ReservationStatus.EXPIRED);
+    }
+
+    private boolean decrementStock(Map<String, Integer> requested) {
+        if (inventoryLedger.isPresent()) {
+            InventoryLedger ledger = inventoryLedger.get();
+            if (!ledger.tryReserve(requested)) {
+                return false;
+            }
+            // The ledger is not part of the transaction: give the stock back if the reservation rows roll back
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        ledger.release(requested);
+                    }
+                }
+            });
+            return true;
+        }
+        return inventoryRepository.decrementStock(requested);
+    }
+
+    private ReservationResponse returnStock(String reservationId, List<ReservationStatus> fromStatuses,
+                                            ReservationStatus targetStatus) {
+        int transitioned = reservationRepository.transition(reservationId, fromStatuses, targetStatus);
+        List<InventoryReservation> reservation = findReservation(reservationId);
+        if (transitioned > 0) {
+            incrementStock(reservation);
+            stockLevelPublisher.stockChanged(reservation.stream().map(InventoryReservation::getSkuCode).toList());
+            log.info("Reservation {} {}, returned stock for {} SKU(s)", reservationId, targetStatus, reservation.size());
+        }
+        return mapToReservationResponse(reservation);
+    }
+
+    private void incrementStock(List<InventoryReservation> reservation) {
+        if (inventoryLedger.isPresent()) {
+            // Only return stock once the RESERVED transition is committed, so it cannot be returned twice
+            InventoryLedger ledger = inventoryLedger.get();
+            Map<String, Integer> returned = reservation.stream()
+                    .collect(Collectors.toMap(InventoryReservation::getSkuCode, InventoryReservation::getQuantity, Integer::sum));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ledger.release(returned);
+                }
+            });
+            return;
+        }
+        for (InventoryReservation line : reservation) {
+            inventoryRepository.incrementStock(line.getSkuCode(), line.getQuantity());
+        }
+    }
+
+    private Map<String, Integer> availableStock(Set<String> skuCodes) {
+        if (inventoryLedger.isPresent()) {
+            Map<String, Integer> available = new HashMap<>();
+            skuCodes.forEach(skuCode -> inventoryLedger.get().available(skuCode)
+                    .ifPresent(quantity -> available.put(skuCode, quantity)));
+            return available;
+        }
+        return inventoryRepository.findBySkuCodeIn(skuCodes)
+                .stream()
+                .collect(Collectors.toMap(Inventory::getSkuCode, Inventory::getQuantity, Integer::sum));
+    }
+
+    private List<InventoryReservation> findReservation(String reservationId) {
+        List<InventoryReservation> reservation = reservationRepository.findByReservationId(reservationId);
+        if (reservation.isEmpty()) {
+            throw new ReservationNotFoundException(reservationId);
+        }
+        return reservation;
+    }
+
+    // Validates the lines and folds repeated SKUs into one quantity, keeping the caller's order
+    private static Map<String, Integer> mergeLines(List<StockLine> lines) {
+        if (lines == null || lines.isEmpty()) {
+            throw new IllegalArgumentException("At least one stock line is required");
+        }
+        Map<String, Integer> merged = new LinkedHashMap<>();
+        for (StockLine line : lines) {
+            if (line.skuCode() == null || line.quantity() == null || line.quantity() <= 0) {
+                throw new IllegalArgumentException("Every stock line needs a skuCode and a positive quantity");
+            }
+            merged.merge(line.skuCode(), line.quantity(), Integer::sum);
+        }
+        return merged;
+    }
+
+    private static List<StockLine> toStockLines(Map<String, Integer> quantitiesBySku) {
+        return quantitiesBySku.entrySet()
+                .stream()
+                .map(line -> new StockLine(line.getKey(), line.getValue()))
+                .toList();
+    }
+
+    private static ReservationResponse mapToReservationResponse(List<InventoryReservation> reservation) {
+        InventoryReservation first = reservation.get(0);
+        List<StockLine> lines = reservation.stream()
+                .map(line -> new StockLine(line.getSkuCode(), line.getQuantity()))
+                .toList();
+        return new ReservationResponse(first.getReservationId(), first.getStatus(), first.getExpiresAt(), lines);
     }
 }
@@ -0,0 +1,209 @@
+package com.vihaanthat.microservices.inventory.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Append-only local journal of {@link InventoryLedger} deltas, split into numbered segments. A segment is
+ * rotated out when its deltas are handed to MySQL and deleted once they are applied. Appends are made
+ * durable with group commit: the first caller to sync forces everything written so far, and callers whose
+ * records were covered by that force return without forcing again.
+ */
+class LedgerJournal {
+    private static final String PREFIX = "ledger-";
+    private static final String SUFFIX = ".journal";
+
+    private final Path directory;
+    private volatile Segment current;
+
+    LedgerJournal(Path directory) {
+        this.directory = directory;
+    }
+
+    record Position(Segment segment, long offset) {
+    }
+
+    /**
+     * Sums the deltas of every segment after {@code checkpoint}; those were journaled but never applied.
+     * Returns an empty map and {@code checkpoint} itself as the last segment when there are none.
+     */
+    RecoveredDeltas recover(long checkpoint) {
+        Map<String, Integer> deltas = new HashMap<>();
+        long lastSegment = checkpoint;
+        for (Path file : segmentFiles()) {
+            long id = segmentId(file);
+            lastSegment = Math.max(lastSegment, id);
+            if (id <= checkpoint) {
+                continue;
+            }
+            try {
+                String records = Files.readString(file, StandardCharsets.UTF_8);
+                // A torn last record (crash mid-append) has no trailing newline and was never acknowledged
+                records.substring(0, records.lastIndexOf('\n') + 1)
+                        .lines()
+                        .map(line -> line.split("\t"))
+                        .forEach(fields -> deltas.merge(fields[0], Integer.parseInt(fields[1]), Integer::sum));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read ledger journal " + file, e);
+            }
+        }
+        return new RecoveredDeltas(deltas, lastSegment);
+    }
+
+    record RecoveredDeltas(Map<String, Integer> deltasBySku, long lastSegment) {
+    }
+
+    void open(long segmentId) {
+        try {
+            Files.createDirectories(directory);
+            current = new Segment(segmentId, FileChannel.open(directory.resolve(PREFIX + segmentId + SUFFIX),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open ledger journal segment " + segmentId, e);
+        }
+    }
+
+    Position append(Map<String, Integer> deltasBySku) {
+        StringBuilder records = new StringBuilder();
+        deltasBySku.forEach((skuCode, delta) -> records.append(skuCode).append('\t').append(delta).append('\n'));
+        Segment segment = current;
+        return new Position(segment, segment.append(records.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    void awaitDurable(Position position) {
+        position.segment().sync(position.offset());
+    }
+
+    boolean isEmpty() {
+        return current.written == 0;
+    }
+
+    /**
+     * Forces and closes the current segment, opens the next one and returns the closed segment's id.
+     * Callers must make sure no append is in progress.
+     */
+    long rotate() {
+        Segment closed = current;
+        closed.close();
+        open(closed.id + 1);
+        return closed.id;
+    }
+
+    void deleteUpTo(long segmentId) {
+        for (Path file : segmentFiles()) {
+            if (segmentId(file) <= segmentId) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot delete ledger journal " + file, e);
+                }
+            }
+        }
+    }
+
+    void close() {
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private List<Path> segmentFiles() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return new ArrayList<>(files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted((a, b) -> Long.compare(segmentId(a), segmentId(b))).toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list ledger journal " + directory, e);
+        }
+    }
+
+    private static long segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    static final class Segment {
+        private final long id;
+        private final FileChannel channel;
+        private final ReentrantLock appendLock = new ReentrantLock();
+        private final ReentrantLock syncLock = new ReentrantLock();
+        private volatile long written;
+        private volatile long durable;
+        private volatile boolean closed;
+
+        private Segment(long id, FileChannel channel) throws IOException {
+            this.id = id;
+            this.channel = channel;
+            this.written = channel.size();
+            this.durable = written;
+        }
+
+        private long append(byte[] records) {
+            appendLock.lock();
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(records);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                written += records.length;
+                return written;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot append to ledger journal segment " + id, e);
+            } finally {
+                appendLock.unlock();
+            }
+        }
+
+        private void sync(long offset) {
+            if (durable >= offset || closed) {
+                return;
+            }
+            syncLock.lock();
+            try {
+                if (durable >= offset || closed) {
+                    return;
+                }
+                long target = written;
+                channel.force(false);
+                durable = target;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot sync ledger journal segment " + id, e);
+            } finally {
+                syncLock.unlock();
+            }
+        }
+
+        private void close() {
+            syncLock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                channel.force(false);
+                durable = written;
+                closed = true;
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot close ledger journal segment " + id, e);
+            } finally {
+                syncLock.unlock();
+            }
+        }
+    }
+}
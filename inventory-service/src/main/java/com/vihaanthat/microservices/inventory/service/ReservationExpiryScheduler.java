@@ -0,0 +1,42 @@
+package com.vihaanthat.microservices.inventory.service;
+
+import com.vihaanthat.microservices.inventory.model.InventoryReservation;
+import com.vihaanthat.microservices.inventory.model.ReservationStatus;
+import com.vihaanthat.microservices.inventory.repository.InventoryReservationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Returns stock held by reservations whose TTL ran out without a confirm or release.
+ * Each reservation is expired in its own transaction so one failure does not roll back the batch.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReservationExpiryScheduler {
+    private final InventoryReservationRepository reservationRepository;
+    private final InventoryService inventoryService;
+
+    @Scheduled(fixedDelayString = "${inventory.reservation.expiry-sweep-interval-ms:30000}")
+    public void expireReservations() {
+        Set<String> expired = reservationRepository
+                .findTop500ByStatusAndExpiresAtBefore(ReservationStatus.RESERVED, Instant.now())
+                .stream()
+                .map(InventoryReservation::getReservationId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        for (String reservationId : expired) {
+            try {
+                inventoryService.expire(reservationId);
+            } catch (RuntimeException e) {
+                log.warn("Failed to expire reservation {}", reservationId, e);
+            }
+        }
+    }
+}
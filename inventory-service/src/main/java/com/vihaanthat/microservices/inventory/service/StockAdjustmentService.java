@@ -0,0 +1,194 @@
+package com.vihaanthat.microservices.inventory.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vihaanthat.microservices.inventory.dto.StockAdjustment;
+import com.vihaanthat.microservices.inventory.dto.StockAdjustmentResponse;
+import com.vihaanthat.microservices.inventory.dto.StockAdjustmentResponse.Outcome;
+import com.vihaanthat.microservices.inventory.dto.StockAdjustmentResponse.Status;
+import com.vihaanthat.microservices.inventory.repository.StockAdjustmentRepository;
+import com.vihaanthat.microservices.inventory.repository.StockAdjustmentRepository.SkuStock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Applies warehouse restock and adjustment feeds. The request body is read one line at a time and applied
+ * in batches of {@code inventory.adjustments.batch-size}, each in its own transaction, so a feed of tens of
+ * thousands of SKUs is never held in memory and a rejected line does not fail the others.
+ */
+@Service
+@Slf4j
+public class StockAdjustmentService {
+    private final StockAdjustmentRepository adjustmentRepository;
+    private final StockLevelPublisher stockLevelPublisher;
+    private final Optional<InventoryLedger> inventoryLedger;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public StockAdjustmentService(StockAdjustmentRepository adjustmentRepository,
+                                  StockLevelPublisher stockLevelPublisher,
+                                  Optional<InventoryLedger> inventoryLedger,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${inventory.adjustments.batch-size:1000}") int batchSize) {
+        this.adjustmentRepository = adjustmentRepository;
+        this.stockLevelPublisher = stockLevelPublisher;
+        this.inventoryLedger = inventoryLedger;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // No gap locks on the SKUs a batch creates, so concurrent feeds do not deadlock on inserts
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.batchSize = batchSize;
+    }
+
+    public StockAdjustmentResponse adjustStock(InputStream body) throws IOException {
+        List<Outcome> outcomes = new ArrayList<>();
+        List<IndexedAdjustment> batch = new ArrayList<>();
+        int received = 0;
+        try (MappingIterator<StockAdjustment> adjustments = objectMapper.readerFor(StockAdjustment.class).readValues(body)) {
+            while (adjustments.hasNextValue()) {
+                StockAdjustment adjustment = adjustments.nextValue();
+                int index = received++;
+                String invalid = validate(adjustment);
+                if (invalid != null) {
+                    outcomes.add(rejected(index, adjustment == null ? null : adjustment.skuCode(), invalid));
+                    continue;
+                }
+                batch.add(new IndexedAdjustment(index, adjustment));
+                if (batch.size() >= batchSize) {
+                    outcomes.addAll(applyBatch(batch));
+                    batch.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            outcomes.add(rejected(received, null, "Malformed adjustment, feed stopped here: " + e.getOriginalMessage()));
+        }
+        outcomes.addAll(applyBatch(batch));
+        outcomes.sort((a, b) -> Integer.compare(a.index(), b.index()));
+        int rejected = (int) outcomes.stream().filter(outcome -> outcome.status() == Status.REJECTED).count();
+        log.info("Stock adjustment feed: {} received, {} applied, {} rejected", received, outcomes.size() - rejected, rejected);
+        return new StockAdjustmentResponse(received, outcomes.size() - rejected, rejected, outcomes);
+    }
+
+    private List<Outcome> applyBatch(List<IndexedAdjustment> batch) {
+        if (batch.isEmpty()) {
+            return List.of();
+        }
+        List<Outcome> outcomes = inventoryLedger.isPresent() ? applyToLedger(batch) : transactionTemplate.execute(status -> applyToDatabase(batch));
+        stockLevelPublisher.stockChanged(outcomes.stream()
+                .filter(outcome -> outcome.status() != Status.REJECTED)
+                .map(Outcome::skuCode)
+                .distinct()
+                .toList());
+        return outcomes;
+    }
+
+    // Locks the batch's SKUs, works out every line's result in memory and writes each SKU's final quantity once.
+    // FOR UPDATE locks nothing for a SKU that does not exist yet, so a new SKU that only received deltas has
+    // their sum added to its row rather than set: another feed may be creating it at the same time.
+    private List<Outcome> applyToDatabase(List<IndexedAdjustment> batch) {
+        Map<String, SkuStock> stock = adjustmentRepository.lockStock(
+                new TreeSet<>(batch.stream().map(line -> line.adjustment().skuCode()).toList()));
+        Map<String, Integer> quantities = new HashMap<>();
+        Set<String> increments = new HashSet<>();
+        List<Outcome> outcomes = new ArrayList<>();
+        for (IndexedAdjustment line : batch) {
+            String skuCode = line.adjustment().skuCode();
+            boolean created = !quantities.containsKey(skuCode) && !stock.containsKey(skuCode);
+            Integer before = quantities.containsKey(skuCode) ? quantities.get(skuCode)
+                    : Optional.ofNullable(stock.get(skuCode)).map(SkuStock::quantity).orElse(null);
+            int after = update(line.adjustment()).applyAsInt(before == null ? 0 : before);
+            if (after < 0) {
+                outcomes.add(rejected(line.index(), skuCode, "Adjustment would take stock below zero"));
+                continue;
+            }
+            if (line.adjustment().quantity() != null) {
+                increments.remove(skuCode);
+            } else if (created) {
+                increments.add(skuCode);
+            }
+            quantities.put(skuCode, after);
+            outcomes.add(new Outcome(line.index(), skuCode, before == null ? Status.CREATED : Status.UPDATED, after, null));
+        }
+        if (!quantities.isEmpty()) {
+            adjustmentRepository.writeStock(quantities, stock.entrySet()
+                    .stream()
+                    .filter(sku -> sku.getValue().buckets() > 1 && quantities.containsKey(sku.getKey()))
+                    .map(Map.Entry::getKey)
+                    .toList(), increments);
+        }
+        return outcomes;
+    }
+
+    // The ledger owns stock: only rows for new SKUs are written here, quantities go through its journal
+    private List<Outcome> applyToLedger(List<IndexedAdjustment> batch) {
+        InventoryLedger ledger = inventoryLedger.get();
+        List<String> missing = batch.stream()
+                .map(line -> line.adjustment().skuCode())
+                .distinct()
+                .filter(skuCode -> ledger.available(skuCode).isEmpty())
+                .toList();
+        if (!missing.isEmpty()) {
+            adjustmentRepository.createMissing(missing);
+            ledger.loadCreated(missing);
+        }
+        List<Integer> results = ledger.adjust(batch.stream()
+                .map(line -> new InventoryLedger.Adjustment(line.adjustment().skuCode(), update(line.adjustment())))
+                .toList());
+        List<Outcome> outcomes = new ArrayList<>();
+        List<String> created = new ArrayList<>(missing);
+        for (int i = 0; i < batch.size(); i++) {
+            IndexedAdjustment line = batch.get(i);
+            String skuCode = line.adjustment().skuCode();
+            Integer after = results.get(i);
+            if (after == null) {
+                outcomes.add(rejected(line.index(), skuCode, "Adjustment would take stock below zero"));
+                continue;
+            }
+            outcomes.add(new Outcome(line.index(), skuCode, created.remove(skuCode) ? Status.CREATED : Status.UPDATED, after, null));
+        }
+        return outcomes;
+    }
+
+    private static IntUnaryOperator update(StockAdjustment adjustment) {
+        return adjustment.quantity() != null ? current -> adjustment.quantity() : current -> current + adjustment.delta();
+    }
+
+    private static String validate(StockAdjustment adjustment) {
+        if (adjustment == null || adjustment.skuCode() == null || adjustment.skuCode().isBlank()) {
+            return "skuCode is required";
+        }
+        if ((adjustment.delta() == null) == (adjustment.quantity() == null)) {
+            return "Exactly one of delta and quantity is required";
+        }
+        if (adjustment.quantity() != null && adjustment.quantity() < 0) {
+            return "quantity must not be negative";
+        }
+        return null;
+    }
+
+    private static Outcome rejected(int index, String skuCode, String message) {
+        return new Outcome(index, skuCode, Status.REJECTED, null, message);
+    }
+
+    private record IndexedAdjustment(int index, StockAdjustment adjustment) {
+    }
+}
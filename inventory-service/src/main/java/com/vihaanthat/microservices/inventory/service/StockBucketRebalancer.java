@@ -0,0 +1,31 @@
+package com.vihaanthat.microservices.inventory.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evens out split SKUs whose reservations drained some buckets, so that reservations keep finding a bucket
+ * with enough stock instead of falling back to locking all of them. Each SKU is rebalanced in its own
+ * transaction.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StockBucketRebalancer {
+    private static final int BATCH_SIZE = 100;
+
+    private final StockBucketService stockBucketService;
+
+    @Scheduled(fixedDelayString = "${inventory.buckets.rebalance-interval-ms:1000}")
+    public void rebalance() {
+        for (String skuCode : stockBucketService.findUnbalancedSkuCodes(BATCH_SIZE)) {
+            try {
+                stockBucketService.rebalance(skuCode);
+            } catch (RuntimeException e) {
+                log.warn("Failed to rebalance stock buckets of {}", skuCode, e);
+            }
+        }
+    }
+}
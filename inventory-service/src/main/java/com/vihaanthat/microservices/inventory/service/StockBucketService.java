@@ -0,0 +1,84 @@
+package com.vihaanthat.microservices.inventory.service;
+
+import com.vihaanthat.microservices.inventory.dto.StockBucketsResponse;
+import com.vihaanthat.microservices.inventory.model.Inventory;
+import com.vihaanthat.microservices.inventory.repository.InventoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a hot SKU's stock across several t_inventory rows (buckets 0..K-1) so that concurrent reservations
+ * lock different rows, and spreads the stock evenly again once reservations have drained some buckets.
+ * Both lock every bucket of the SKU in bucket order and keep the SKU's total unchanged.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockBucketService {
+    private final InventoryRepository inventoryRepository;
+
+    @Value("${inventory.buckets.max-per-sku:64}")
+    private int maxBuckets;
+
+    @Transactional
+    public StockBucketsResponse split(String skuCode, int bucketCount) {
+        if (bucketCount < 1 || bucketCount > maxBuckets) {
+            throw new IllegalArgumentException("Bucket count must be between 1 and " + maxBuckets);
+        }
+        List<Inventory> buckets = lockBuckets(skuCode);
+        int total = totalOf(buckets);
+        List<Inventory> kept = new ArrayList<>(buckets.subList(0, Math.min(bucketCount, buckets.size())));
+        inventoryRepository.deleteAll(buckets.subList(kept.size(), buckets.size()));
+        for (int bucket = kept.size(); bucket < bucketCount; bucket++) {
+            kept.add(new Inventory(null, skuCode, 0, bucket));
+        }
+        spread(kept, total);
+        inventoryRepository.saveAll(kept);
+        log.info("Split stock of {} ({} units) into {} bucket(s)", skuCode, total, bucketCount);
+        return mapToStockBucketsResponse(skuCode, kept);
+    }
+
+    @Transactional
+    public void rebalance(String skuCode) {
+        List<Inventory> buckets = lockBuckets(skuCode);
+        if (buckets.size() > 1) {
+            spread(buckets, totalOf(buckets));
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<String> findUnbalancedSkuCodes(int limit) {
+        return inventoryRepository.findUnbalancedSkuCodes(limit);
+    }
+
+    private List<Inventory> lockBuckets(String skuCode) {
+        List<Inventory> buckets = inventoryRepository.findBySkuCodeOrderByBucketAsc(skuCode);
+        if (buckets.isEmpty()) {
+            throw new IllegalArgumentException("Unknown skuCode " + skuCode);
+        }
+        return buckets;
+    }
+
+    private static int totalOf(List<Inventory> buckets) {
+        return buckets.stream().mapToInt(Inventory::getQuantity).sum();
+    }
+
+    // Even share per bucket; the remainder goes to the lowest buckets
+    private static void spread(List<Inventory> buckets, int total) {
+        int share = Math.floorDiv(total, buckets.size());
+        int remainder = Math.floorMod(total, buckets.size());
+        for (int i = 0; i < buckets.size(); i++) {
+            buckets.get(i).setQuantity(share + (i < remainder ? 1 : 0));
+        }
+    }
+
+    private static StockBucketsResponse mapToStockBucketsResponse(String skuCode, List<Inventory> buckets) {
+        return new StockBucketsResponse(skuCode, buckets.stream().map(Inventory::getQuantity).toList());
+    }
+}
@@ -0,0 +1,100 @@
+package com.vihaanthat.microservices.inventory.service;
+
+import com.vihaanthat.microservices.inventory.event.StockLevelEvent;
+import com.vihaanthat.microservices.inventory.model.Inventory;
+import com.vihaanthat.microservices.inventory.repository.InventoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes the current quantity of every SKU whose stock changed. SKUs are collected once the changing
+ * transaction commits and flushed on a fixed interval, so a hot SKU yields one event per flush rather than
+ * one per reservation. Events are Avro-encoded and keyed by skuCode on a compacted topic, so the latest one
+ * per key is the SKU's stock level and consumers can rebuild a local replica from the topic alone.
+ */
+@Component
+@Slf4j
+public class StockLevelPublisher {
+    private final InventoryRepository inventoryRepository;
+    private final ObjectProvider<InventoryLedger> inventoryLedger;
+    private final KafkaTemplate<String, StockLevelEvent> kafkaTemplate;
+    private final String topic;
+    private final Set<String> changedSkuCodes = ConcurrentHashMap.newKeySet();
+
+    public StockLevelPublisher(InventoryRepository inventoryRepository,
+                               ObjectProvider<InventoryLedger> inventoryLedger,
+                               KafkaTemplate<String, StockLevelEvent> kafkaTemplate,
+                               @Value("${inventory.stock-events.topic:inventory-stock-levels}") String topic) {
+        this.inventoryRepository = inventoryRepository;
+        this.inventoryLedger = inventoryLedger;
+        this.kafkaTemplate = kafkaTemplate;
+        this.topic = topic;
+    }
+
+    public void stockChanged(Collection<String> skuCodes) {
+        List<String> changed = List.copyOf(skuCodes);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            changedSkuCodes.addAll(changed);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                changedSkuCodes.addAll(changed);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.stock-events.flush-interval-ms:500}")
+    public void flush() {
+        Set<String> skuCodes = new HashSet<>();
+        for (String skuCode : changedSkuCodes) {
+            if (changedSkuCodes.remove(skuCode)) {
+                skuCodes.add(skuCode);
+            }
+        }
+        if (skuCodes.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> quantities = currentQuantities(skuCodes);
+        for (String skuCode : skuCodes) {
+            kafkaTemplate.send(topic, skuCode, new StockLevelEvent(skuCode, quantities.getOrDefault(skuCode, 0)))
+                    .whenComplete((result, ex) -> {
+                        if (ex != null) {
+                            // Put it back so the next flush retries with the then-current quantity
+                            changedSkuCodes.add(skuCode);
+                            log.warn("Failed to publish stock level for {}", skuCode, ex);
+                        }
+                    });
+        }
+        log.debug("Published stock levels for {} SKU(s)", skuCodes.size());
+    }
+
+    // With the ledger enabled t_inventory lags behind it, so quantities come from the ledger
+    private Map<String, Integer> currentQuantities(Set<String> skuCodes) {
+        InventoryLedger ledger = inventoryLedger.getIfAvailable();
+        if (ledger != null) {
+            Map<String, Integer> quantities = new HashMap<>();
+            skuCodes.forEach(skuCode -> ledger.available(skuCode).ifPresent(quantity -> quantities.put(skuCode, quantity)));
+            return quantities;
+        }
+        return inventoryRepository.findBySkuCodeIn(skuCodes)
+                .stream()
+                .collect(Collectors.toMap(Inventory::getSkuCode, Inventory::getQuantity, Integer::sum));
+    }
+}
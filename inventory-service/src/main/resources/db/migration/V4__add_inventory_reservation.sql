@@ -0,0 +1,15 @@
+-- Index the lookup column so the conditional reserve UPDATE locks a single row instead of scanning the table
+CREATE INDEX `idx_inventory_sku_code` ON `t_inventory` (`sku_code`);
+
+CREATE TABLE `t_inventory_reservation` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT,
+    `reservation_id` VARCHAR(36) NOT NULL,
+    `sku_code` VARCHAR(255) NOT NULL,
+    `quantity` INT NOT NULL,
+    `status` VARCHAR(16) NOT NULL,
+    `expires_at` TIMESTAMP(6) NOT NULL,
+    `created_at` TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_inventory_reservation_reservation_id` (`reservation_id`),
+    KEY `idx_inventory_reservation_status_expires_at` (`status`, `expires_at`)
+);
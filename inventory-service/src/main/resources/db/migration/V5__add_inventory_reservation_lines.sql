@@ -0,0 +1,4 @@
+-- A reservation may now hold several SKUs: one row per reservation line
+ALTER TABLE `t_inventory_reservation`
+    DROP INDEX `uk_inventory_reservation_reservation_id`,
+    ADD UNIQUE KEY `uk_inventory_reservation_line` (`reservation_id`, `sku_code`);
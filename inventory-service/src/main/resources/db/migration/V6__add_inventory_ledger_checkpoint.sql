@@ -0,0 +1,9 @@
+-- Last journal segment of the in-memory inventory ledger whose deltas are applied to t_inventory;
+-- updated in the same transaction as the deltas so a segment is never applied twice
+CREATE TABLE `t_inventory_ledger_checkpoint` (
+    `id` INT NOT NULL,
+    `segment` BIGINT NOT NULL,
+    PRIMARY KEY (`id`)
+);
+
+INSERT INTO `t_inventory_ledger_checkpoint` (`id`, `segment`) VALUES (1, 0);
@@ -0,0 +1,6 @@
+-- A hot SKU's stock may be split across several rows (buckets) so concurrent reservations lock different rows;
+-- an unsplit SKU keeps its single row as bucket 0
+ALTER TABLE `t_inventory`
+    ADD COLUMN `bucket` INT NOT NULL DEFAULT 0,
+    DROP INDEX `idx_inventory_sku_code`,
+    ADD UNIQUE KEY `uk_inventory_sku_code_bucket` (`sku_code`, `bucket`);
@@ -0,0 +1,49 @@
+package com.vihaanthat.microservices.inventory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a task many times from a fixed pool, releasing every submission at once so they contend on the same rows.
+ * Shared by the reservation and ledger tests so both put the same load on their SKUs.
+ */
+final class ConcurrentTasks {
+
+    private ConcurrentTasks() {
+    }
+
+    static <T> List<T> run(int tasks, int threads, Callable<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < tasks; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(2, TimeUnit.MINUTES));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Operations per second over the whole run, including the time spent waiting on the slowest task
+    static double throughput(int operations, int threads, Callable<?> task) throws Exception {
+        long start = System.nanoTime();
+        run(operations, threads, task);
+        return operations / ((System.nanoTime() - start) / 1_000_000_000.0);
+    }
+}
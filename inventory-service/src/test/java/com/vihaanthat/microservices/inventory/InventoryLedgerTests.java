@@ -0,0 +1,118 @@
+package com.vihaanthat.microservices.inventory;
+
+import com.vihaanthat.microservices.inventory.dto.ReservationRequest;
+import com.vihaanthat.microservices.inventory.dto.ReservationResponse;
+import com.vihaanthat.microservices.inventory.dto.StockLine;
+import com.vihaanthat.microservices.inventory.model.Inventory;
+import com.vihaanthat.microservices.inventory.model.ReservationStatus;
+import com.vihaanthat.microservices.inventory.repository.InventoryRepository;
+import com.vihaanthat.microservices.inventory.service.InventoryLedger;
+import com.vihaanthat.microservices.inventory.service.InventoryService;
+import com.vihaanthat.microservices.inventory.service.StockBucketService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.MySQLContainer;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "inventory.ledger.enabled=true",
+        "inventory.ledger.journal-dir=${java.io.tmpdir}/inventory-ledger-test-${random.uuid}"
+})
+@Slf4j
+class InventoryLedgerTests {
+
+    @ServiceConnection
+    static MySQLContainer mySQLContainer = new MySQLContainer("mysql:8.3.0");
+
+    static {
+        mySQLContainer.start();
+    }
+
+    @Autowired
+    private InventoryService inventoryService;
+    @Autowired
+    private InventoryLedger inventoryLedger;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private StockBucketService stockBucketService;
+
+    @Test
+    void shouldNeverOversellAndWriteStockBehindToMysql() throws Exception {
+        int stock = 50;
+        Inventory inventory = inventoryRepository.save(new Inventory(null, "ledger_flash_sku", stock));
+
+        List<ReservationResponse> results = ConcurrentTasks.run(400, 32,
+                () -> inventoryService.reserve(new ReservationRequest("ledger_flash_sku", 1)));
+
+        long reserved = results.stream().filter(r -> r.status() == ReservationStatus.RESERVED).count();
+        assertEquals(stock, reserved);
+        assertEquals(Optional.of(0), inventoryLedger.available("ledger_flash_sku"));
+
+        inventoryLedger.flush();
+        assertEquals(0, inventoryRepository.findById(inventory.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void shouldReturnReleasedStockToTheLedger() {
+        Inventory inventory = inventoryRepository.save(new Inventory(null, "ledger_release_sku", 10));
+        var reservation = inventoryService.reserveAll(List.of(new StockLine("ledger_release_sku", 4)));
+        assertEquals(Optional.of(6), inventoryLedger.available("ledger_release_sku"));
+        assertEquals(ReservationStatus.REJECTED,
+                inventoryService.reserveAll(List.of(new StockLine("ledger_release_sku", 7))).status());
+
+        inventoryService.release(reservation.reservationId());
+        inventoryService.release(reservation.reservationId());
+
+        assertEquals(Optional.of(10), inventoryLedger.available("ledger_release_sku"));
+        inventoryLedger.flush();
+        assertEquals(10, inventoryRepository.findById(inventory.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void shouldRememberAnUnknownSkuUntilItIsCreated() {
+        assertEquals(Optional.empty(), inventoryLedger.available("ledger_new_sku"));
+        inventoryRepository.save(new Inventory(null, "ledger_new_sku", 5));
+
+        // Still answered from the remembered miss, without asking MySQL again
+        assertEquals(Optional.empty(), inventoryLedger.available("ledger_new_sku"));
+        inventoryLedger.loadCreated(List.of("ledger_new_sku"));
+        assertEquals(Optional.of(5), inventoryLedger.available("ledger_new_sku"));
+    }
+
+    @Test
+    void shouldTakeAFlushedLossFromEveryBucketOfASplitSku() {
+        inventoryRepository.save(new Inventory(null, "ledger_split_sku", 12));
+        stockBucketService.split("ledger_split_sku", 4);
+        assertEquals(ReservationStatus.RESERVED,
+                inventoryService.reserveAll(List.of(new StockLine("ledger_split_sku", 10))).status());
+
+        inventoryLedger.flush();
+
+        List<Inventory> buckets = inventoryRepository.findBySkuCodeOrderByBucketAsc("ledger_split_sku");
+        assertEquals(2, buckets.stream().mapToInt(Inventory::getQuantity).sum());
+        assertTrue(buckets.stream().allMatch(bucket -> bucket.getQuantity() >= 0));
+    }
+
+    // Ledger counterpart of InventoryReservationTests#benchmarkReserveAgainstProbe, on a single hot SKU
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkHotSkuReservations() throws Exception {
+        inventoryRepository.save(new Inventory(null, "ledger_benchmark_sku", Integer.MAX_VALUE / 2));
+        int operations = 5_000;
+
+        double opsPerSecond = ConcurrentTasks.throughput(operations, 16,
+                () -> inventoryService.reserve(new ReservationRequest("ledger_benchmark_sku", 1)));
+
+        log.info("ledger reserve on one SKU: {} ops/s", Math.round(opsPerSecond));
+    }
+}
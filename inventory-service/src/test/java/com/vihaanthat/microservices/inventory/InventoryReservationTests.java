@@ -0,0 +1,172 @@
+package com.vihaanthat.microservices.inventory;
+
+import com.vihaanthat.microservices.inventory.dto.ReservationRequest;
+import com.vihaanthat.microservices.inventory.dto.ReservationResponse;
+import com.vihaanthat.microservices.inventory.dto.StockCheckResponse;
+import com.vihaanthat.microservices.inventory.dto.StockLine;
+import com.vihaanthat.microservices.inventory.model.Inventory;
+import com.vihaanthat.microservices.inventory.model.ReservationStatus;
+import com.vihaanthat.microservices.inventory.repository.InventoryRepository;
+import com.vihaanthat.microservices.inventory.service.InventoryService;
+import com.vihaanthat.microservices.inventory.service.StockBucketService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.MySQLContainer;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// A pool large enough for the reservers to contend on row locks rather than queue for one of 5 connections
+@SpringBootTest(properties = "spring.datasource.hikari.maximum-pool-size=64")
+@Slf4j
+class InventoryReservationTests {
+
+    @ServiceConnection
+    static MySQLContainer mySQLContainer = new MySQLContainer("mysql:8.3.0");
+
+    static {
+        mySQLContainer.start();
+    }
+
+    @Autowired
+    private InventoryService inventoryService;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private StockBucketService stockBucketService;
+
+    @Test
+    void shouldNeverOversellUnderConcurrentReservations() throws Exception {
+        int stock = 50;
+        int buyers = 400;
+        Inventory inventory = inventoryRepository.save(new Inventory(null, "flash_sale_sku", stock));
+
+        List<ReservationResponse> results = ConcurrentTasks.run(buyers, 32,
+                () -> inventoryService.reserve(new ReservationRequest("flash_sale_sku", 1)));
+
+        long reserved = results.stream().filter(r -> r.status() == ReservationStatus.RESERVED).count();
+        assertEquals(stock, reserved);
+        assertEquals(0, inventoryRepository.findById(inventory.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void shouldReturnStockOnReleaseOnlyOnce() throws Exception {
+        Inventory inventory = inventoryRepository.save(new Inventory(null, "release_sku", 10));
+        ReservationResponse reservation = inventoryService.reserve(new ReservationRequest("release_sku", 4));
+        assertEquals(6, inventoryRepository.findById(inventory.getId()).orElseThrow().getQuantity());
+
+        ConcurrentTasks.run(20, 8, () -> inventoryService.release(reservation.reservationId()));
+
+        assertEquals(10, inventoryRepository.findById(inventory.getId()).orElseThrow().getQuantity());
+        assertEquals(ReservationStatus.RELEASED, inventoryService.confirm(reservation.reservationId()).status());
+    }
+
+    @Test
+    void shouldReplayReservationWithSameIdempotencyKey() {
+        Inventory inventory = inventoryRepository.save(new Inventory(null, "retried_sku", 10));
+        String idempotencyKey = "5d0c6f4e-1f0e-4c39-9a55-8f1d2b7c3e10";
+
+        ReservationResponse first = inventoryService.reserveAll(List.of(new StockLine("retried_sku", 3)), idempotencyKey);
+        ReservationResponse retried = inventoryService.reserveAll(List.of(new StockLine("retried_sku", 3)), idempotencyKey);
+
+        assertEquals(idempotencyKey, first.reservationId());
+        assertEquals(first.reservationId(), retried.reservationId());
+        assertEquals(ReservationStatus.RESERVED, retried.status());
+        assertEquals(7, inventoryRepository.findById(inventory.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void shouldReleaseAConfirmedReservation() {
+        Inventory inventory = inventoryRepository.save(new Inventory(null, "confirmed_release_sku", 5));
+        ReservationResponse reservation = inventoryService.reserve(new ReservationRequest("confirmed_release_sku", 2));
+        assertEquals(ReservationStatus.CONFIRMED, inventoryService.confirm(reservation.reservationId()).status());
+
+        assertEquals(ReservationStatus.RELEASED, inventoryService.release(reservation.reservationId()).status());
+        assertEquals(5, inventoryRepository.findById(inventory.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void shouldReserveAllLinesOrNone() {
+        Inventory phones = inventoryRepository.save(new Inventory(null, "batch_phone", 5));
+        Inventory cases = inventoryRepository.save(new Inventory(null, "batch_case", 1));
+
+        var rejected = inventoryService.reserveAll(List.of(new StockLine("batch_phone", 2), new StockLine("batch_case", 2)));
+        assertEquals(ReservationStatus.REJECTED, rejected.status());
+        assertEquals(5, inventoryRepository.findById(phones.getId()).orElseThrow().getQuantity());
+        assertEquals(1, inventoryRepository.findById(cases.getId()).orElseThrow().getQuantity());
+
+        var reserved = inventoryService.reserveAll(List.of(new StockLine("batch_phone", 2), new StockLine("batch_case", 1),
+                new StockLine("batch_phone", 1)));
+        assertEquals(ReservationStatus.RESERVED, reserved.status());
+        assertEquals(List.of(new StockLine("batch_phone", 3), new StockLine("batch_case", 1)), reserved.lines());
+        assertEquals(2, inventoryRepository.findById(phones.getId()).orElseThrow().getQuantity());
+        assertEquals(0, inventoryRepository.findById(cases.getId()).orElseThrow().getQuantity());
+
+        assertEquals(List.of(new StockCheckResponse("batch_phone", 2, true), new StockCheckResponse("batch_case", 1, false),
+                        new StockCheckResponse("unknown_sku", 1, false)),
+                inventoryService.checkStock(List.of(new StockLine("batch_phone", 2), new StockLine("batch_case", 1),
+                        new StockLine("unknown_sku", 1))));
+    }
+
+    @Test
+    void shouldNeverOversellASplitSku() throws Exception {
+        int stock = 50;
+        inventoryRepository.save(new Inventory(null, "split_sku", stock));
+        assertEquals(List.of(7, 7, 6, 6, 6, 6, 6, 6), stockBucketService.split("split_sku", 8).bucketQuantities());
+
+        List<ReservationResponse> results = ConcurrentTasks.run(400, 32,
+                () -> inventoryService.reserve(new ReservationRequest("split_sku", 2)));
+
+        long reserved = results.stream().filter(r -> r.status() == ReservationStatus.RESERVED).count();
+        assertEquals(stock / 2, reserved);
+        assertEquals(0, inventoryRepository.findBySkuCodeIn(List.of("split_sku")).stream()
+                .mapToInt(Inventory::getQuantity).sum());
+
+        ReservationResponse accepted = results.stream()
+                .filter(r -> r.status() == ReservationStatus.RESERVED)
+                .findFirst()
+                .orElseThrow();
+        inventoryService.release(accepted.reservationId());
+        assertEquals(List.of(1, 1), stockBucketService.split("split_sku", 2).bucketQuantities());
+    }
+
+    // 1000 concurrent reservers, up to 64 of them in MySQL at once, on one unsplit SKU against the same load on a
+    // SKU split into 16 buckets
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkBucketContention() throws Exception {
+        int reservers = 1_000;
+        for (int buckets : List.of(1, 16)) {
+            String skuCode = "bucket_benchmark_sku_" + buckets;
+            inventoryRepository.save(new Inventory(null, skuCode, Integer.MAX_VALUE / 2));
+            stockBucketService.split(skuCode, buckets);
+            double opsPerSecond = ConcurrentTasks.throughput(reservers * 5, reservers,
+                    () -> inventoryService.reserve(new ReservationRequest(skuCode, 1)));
+            log.info("{} bucket(s): {} reservations/s", buckets, Math.round(opsPerSecond));
+        }
+    }
+
+    // Compares the read-only probe with the reserve+release round trip on the same connection pool
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkReserveAgainstProbe() throws Exception {
+        inventoryRepository.save(new Inventory(null, "benchmark_sku", Integer.MAX_VALUE / 2));
+        int operations = 5_000;
+        int threads = 16;
+
+        double probeOpsPerSecond = ConcurrentTasks.throughput(operations, threads,
+                () -> inventoryService.isInStock("benchmark_sku", 1));
+        double reserveOpsPerSecond = ConcurrentTasks.throughput(operations, threads, () -> {
+            var reservation = inventoryService.reserve(new ReservationRequest("benchmark_sku", 1));
+            return inventoryService.release(reservation.reservationId());
+        });
+
+        log.info("isInStock probe: {} ops/s, reserve+release: {} ops/s",
+                Math.round(probeOpsPerSecond), Math.round(reserveOpsPerSecond));
+    }
+}
@@ -52,4 +52,60 @@ class InventoryServiceApplicationTests {
                 .extract().response().as(Boolean.class);
         assertFalse(negativeResponse);
     }
+
+    @Test
+    void shouldApplyStockAdjustmentFeed() {
+        String feed = """
+                {"skuCode": "iphone_13", "delta": 25}
+                {"skuCode": "feed_new_sku", "quantity": 40}
+                {"skuCode": "feed_new_sku", "delta": -50}
+                {"skuCode": "feed_new_sku", "delta": -15}
+                {"skuCode": "feed_bad_sku", "delta": 1, "quantity": 1}
+                """;
+        RestAssured.given()
+                .contentType("application/x-ndjson")
+                .body(feed)
+                .when()
+                .post("/api/inventory/adjustments")
+                .then()
+                .log().all()
+                .statusCode(200)
+                .body("received", is(5))
+                .body("applied", is(3))
+                .body("outcomes.status", Matchers.contains("UPDATED", "CREATED", "REJECTED", "UPDATED", "REJECTED"))
+                .body("outcomes[3].quantity", is(25));
+
+        var response = RestAssured.given()
+                .when()
+                .get("/api/inventory?skuCode=feed_new_sku&quantity=25")
+                .then()
+                .statusCode(200)
+                .extract().response().as(Boolean.class);
+        assertTrue(response);
+    }
+
+    @Test
+    void shouldKeepEveryDeltaOfFeedsCreatingTheSameSku() throws Exception {
+        ConcurrentTasks.run(8, 8, () -> RestAssured.given()
+                .contentType("application/x-ndjson")
+                .body("{\"skuCode\": \"feed_race_sku\", \"delta\": 5}\n")
+                .when()
+                .post("/api/inventory/adjustments")
+                .then()
+                .statusCode(200)
+                .body("applied", is(1)));
+
+        assertTrue(RestAssured.given()
+                .when()
+                .get("/api/inventory?skuCode=feed_race_sku&quantity=40")
+                .then()
+                .statusCode(200)
+                .extract().response().as(Boolean.class));
+        assertFalse(RestAssured.given()
+                .when()
+                .get("/api/inventory?skuCode=feed_race_sku&quantity=41")
+                .then()
+                .statusCode(200)
+                .extract().response().as(Boolean.class));
+    }
 }
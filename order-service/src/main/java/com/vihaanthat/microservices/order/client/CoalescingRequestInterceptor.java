@@ -0,0 +1,119 @@
+package com.vihaanthat.microservices.order.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-flight for the read-only inventory lookups: while a lookup is in flight, identical requests
+ * (same method, URI and body) wait for it and get a copy of its response instead of making their own call.
+ * It sits below the {@link InventoryClient} proxy, so every caller still passes through its own circuit
+ * breaker and retry. Reservation calls are never coalesced because each one takes stock.
+ */
+public class CoalescingRequestInterceptor implements ClientHttpRequestInterceptor {
+    private static final Set<String> COALESCED_LOOKUPS = Set.of("GET /api/inventory", "POST /api/inventory/batch");
+
+    private final Map<String, CompletableFuture<BufferedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Counter executed;
+    private final Counter coalesced;
+
+    public CoalescingRequestInterceptor(MeterRegistry meterRegistry) {
+        this.executed = Counter.builder("order.inventory.lookups")
+                .tag("outcome", "executed")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("order.inventory.lookups")
+                .tag("outcome", "coalesced")
+                .register(meterRegistry);
+        Gauge.builder("order.inventory.lookups.dedup-ratio", this, CoalescingRequestInterceptor::dedupRatio)
+                .description("Share of inventory lookups answered by another in-flight call")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        if (!COALESCED_LOOKUPS.contains(request.getMethod().name() + " " + request.getURI().getPath())) {
+            return execution.execute(request, body);
+        }
+        String key = request.getMethod() + " " + request.getURI() + " " + new String(body, StandardCharsets.UTF_8);
+        CompletableFuture<BufferedResponse> call = new CompletableFuture<>();
+        CompletableFuture<BufferedResponse> leader = inFlight.putIfAbsent(key, call);
+        if (leader != null) {
+            coalesced.increment();
+            return await(leader);
+        }
+        executed.increment();
+        try (ClientHttpResponse response = execution.execute(request, body)) {
+            call.complete(new BufferedResponse(response.getStatusCode(), response.getStatusText(),
+                    HttpHeaders.readOnlyHttpHeaders(response.getHeaders()), response.getBody().readAllBytes()));
+        } catch (IOException | RuntimeException e) {
+            call.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, call);
+        }
+        return await(call);
+    }
+
+    private double dedupRatio() {
+        double total = executed.count() + coalesced.count();
+        return total == 0 ? 0 : coalesced.count() / total;
+    }
+
+    // Followers see the leader's failure as their own, so their retry and circuit breaker react to it as usual
+    private static ClientHttpResponse await(CompletableFuture<BufferedResponse> call) throws IOException {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private record BufferedResponse(HttpStatusCode statusCode, String statusText, HttpHeaders headers,
+                                    byte[] content) implements ClientHttpResponse {
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return statusCode;
+        }
+
+        @Override
+        public String getStatusText() {
+            return statusText;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -1,11 +1,22 @@
 package com.vihaanthat.microservices.order.client;
 
+import com.vihaanthat.microservices.order.dto.ReservationRequest;
+import com.vihaanthat.microservices.order.dto.ReservationResponse;
+import com.vihaanthat.microservices.order.dto.StockCheckResponse;
+import com.vihaanthat.microservices.order.dto.StockLine;
+import com.vihaanthat.microservices.order.exception.InventoryUnavailableException;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.service.annotation.GetExchange;
+import org.springframework.web.service.annotation.PostExchange;
+
+import java.util.List;
 
 public interface InventoryClient {
     Logger log = LoggerFactory.getLogger(InventoryClient.class);
@@ -15,8 +26,69 @@ public interface InventoryClient {
     @Retry(name = "inventory")
     boolean isInStock(@RequestParam String skuCode, @RequestParam Integer quantity);
 
+    @PostExchange("/api/inventory/batch")
+    @CircuitBreaker(name = "inventory", fallbackMethod = "checkStockFallback")
+    @Retry(name = "inventory")
+    List<StockCheckResponse> checkStock(@RequestBody List<StockLine> lines);
+
+    // Reservations are retried with the same Idempotency-Key, so a retry after a timed-out but committed
+    // request is answered with that reservation instead of holding the stock a second time
+    @PostExchange("/api/inventory/reservations")
+    @CircuitBreaker(name = "inventory", fallbackMethod = "reserveFallback")
+    @Retry(name = "inventory")
+    ReservationResponse reserve(@RequestHeader("Idempotency-Key") String reservationKey,
+                                @RequestBody ReservationRequest reservationRequest);
+
+    @PostExchange("/api/inventory/reservations/batch")
+    @CircuitBreaker(name = "inventory", fallbackMethod = "reserveAllFallback")
+    @Retry(name = "inventory")
+    ReservationResponse reserveAll(@RequestHeader("Idempotency-Key") String reservationKey,
+                                   @RequestBody List<StockLine> lines);
+
+    @PostExchange("/api/inventory/reservations/{reservationId}/confirm")
+    @CircuitBreaker(name = "inventory", fallbackMethod = "confirmFallback")
+    @Retry(name = "inventory")
+    ReservationResponse confirm(@PathVariable String reservationId);
+
+    @PostExchange("/api/inventory/reservations/{reservationId}/release")
+    @CircuitBreaker(name = "inventory", fallbackMethod = "releaseFallback")
+    @Retry(name = "inventory")
+    ReservationResponse release(@PathVariable String reservationId);
+
     default boolean fallbackMethod(String code, Integer quantity, Throwable throwable) {
         log.info("Cannot get inventory for skucode {}, failure reason: {}", code, throwable.getMessage());
         return false;
     }
+
+    // An open circuit or a timeout says nothing about stock: fail instead of answering REJECTED, so only a real
+    // 409 from inventory-service rejects an order and an accepted order stays PENDING to be retried
+    default ReservationResponse reserveFallback(String reservationKey, ReservationRequest reservationRequest,
+                                                Throwable throwable) {
+        throw new InventoryUnavailableException("Cannot reserve inventory for skucode "
+                + reservationRequest.skuCode(), throwable);
+    }
+
+    // Like the reservation fallbacks: an unreachable inventory-service must not read as "out of stock"
+    default List<StockCheckResponse> checkStockFallback(List<StockLine> lines, Throwable throwable) {
+        throw new InventoryUnavailableException("Cannot check inventory for " + lines.size() + " skucode(s)",
+                throwable);
+    }
+
+    default ReservationResponse reserveAllFallback(String reservationKey, List<StockLine> lines, Throwable throwable) {
+        throw new InventoryUnavailableException("Cannot reserve inventory for " + lines.size() + " skucode(s)",
+                throwable);
+    }
+
+    // The order must not commit on an unconfirmed reservation: inventory-service would expire it after its TTL
+    // and put the stock back on sale. Failing here rolls the order back and releases the reservation.
+    default ReservationResponse confirmFallback(String reservationId, Throwable throwable) {
+        throw new InventoryUnavailableException("Cannot confirm reservation " + reservationId, throwable);
+    }
+
+    // Release failures are not fatal: an unconfirmed reservation is expired after its TTL. Only a reservation
+    // confirmed for an order whose commit then failed stays held, which is logged for reconciliation.
+    default ReservationResponse releaseFallback(String reservationId, Throwable throwable) {
+        log.warn("Cannot release reservation {}, failure reason: {}", reservationId, throwable.getMessage());
+        return null;
+    }
 }
@@ -0,0 +1,66 @@
+package com.vihaanthat.microservices.order.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Polls the replica's replication status. The replica is usable while replication runs and
+ * Seconds_Behind_Source is at most the configured max lag; until the first successful check, while
+ * replication is stopped, or while the replica cannot be reached, reads stay on the primary.
+ * The replica user needs the REPLICATION CLIENT privilege.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+    private final JdbcTemplate replica;
+    private final Duration maxLag;
+    // -1 while the lag is unknown
+    private volatile long lagSeconds = -1;
+    private volatile boolean replicaUsable;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, Duration maxLag, MeterRegistry meterRegistry) {
+        this.replica = new JdbcTemplate(replicaDataSource);
+        this.maxLag = maxLag;
+        Gauge.builder("order.datasource.replica.lag", () -> lagSeconds)
+                .baseUnit("seconds")
+                .description("Replication lag of the read replica, -1 when unknown")
+                .register(meterRegistry);
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    @Scheduled(fixedDelayString = "${order.replica.lag-check-interval-ms:1000}")
+    public void check() {
+        Long lag;
+        try {
+            List<Long> lags = replica.query("SHOW REPLICA STATUS", (row, rowNum) -> {
+                long seconds = row.getLong("Seconds_Behind_Source");
+                return row.wasNull() ? null : seconds;
+            });
+            lag = lags.isEmpty() ? null : lags.get(0);
+        } catch (DataAccessException e) {
+            log.debug("Cannot read replica status", e);
+            lag = null;
+        }
+        boolean usable = lag != null && lag <= maxLag.toSeconds();
+        if (usable != replicaUsable) {
+            if (usable) {
+                log.info("Read replica caught up ({}s behind), routing read-only transactions to it", lag);
+            } else {
+                log.warn("Read replica unusable (lag {}), routing read-only transactions to the primary",
+                        lag == null ? "unknown" : lag + "s");
+            }
+        }
+        lagSeconds = lag == null ? -1 : lag;
+        replicaUsable = usable;
+    }
+}
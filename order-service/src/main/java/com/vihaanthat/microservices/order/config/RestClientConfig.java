@@ -1,12 +1,24 @@
 package com.vihaanthat.microservices.order.config;
 
+import com.vihaanthat.microservices.order.client.CoalescingRequestInterceptor;
 import com.vihaanthat.microservices.order.client.InventoryClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
 import io.micrometer.observation.ObservationRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.client.ClientHttpRequestFactory;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.support.RestClientAdapter;
 import org.springframework.web.service.invoker.HttpServiceProxyFactory;
@@ -19,22 +31,80 @@ public class RestClientConfig {
     @Value("${inventory.url}")
     private String inventoryServiceUrl;
 
+    @Value("${inventory.http.max-connections:200}")
+    private int maxConnections;
+
+    @Value("${inventory.http.max-connections-per-route:100}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${inventory.http.connect-timeout:3s}")
+    private Duration connectTimeout;
+
+    @Value("${inventory.http.read-timeout:3s}")
+    private Duration readTimeout;
+
+    @Value("${inventory.http.pool-acquire-timeout:1s}")
+    private Duration poolAcquireTimeout;
+
+    @Value("${inventory.http.idle-eviction:30s}")
+    private Duration idleEviction;
+
+    @Value("${inventory.http.connection-ttl:5m}")
+    private Duration connectionTtl;
+
     @Bean
-    public InventoryClient inventoryClient(ObservationRegistry observationRegistry) {
+    public InventoryClient inventoryClient(ObservationRegistry observationRegistry, CloseableHttpClient inventoryHttpClient,
+                                           MeterRegistry meterRegistry) {
         RestClient restClient = RestClient.builder()
                 .baseUrl(inventoryServiceUrl)
-                .requestFactory(getClientRequestFactory())
+                .requestFactory(getClientRequestFactory(inventoryHttpClient))
                 .observationRegistry(observationRegistry)
+                .requestInterceptor(new CoalescingRequestInterceptor(meterRegistry))
+                // inventory-service answers a rejected reservation with 409 and the reservation state in the body;
+                // that is a business outcome, not a failure for the circuit breaker or retry to act on
+                .defaultStatusHandler(status -> status.value() == HttpStatus.CONFLICT.value(), (request, response) -> {
+                })
                 .build();
         var restClientAdapter = RestClientAdapter.create(restClient);
         var httpServiceProxyFactory = HttpServiceProxyFactory.builderFor(restClientAdapter).build();
         return httpServiceProxyFactory.createClient(InventoryClient.class);
     }
 
-    private ClientHttpRequestFactory getClientRequestFactory() {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(Duration.ofSeconds(3));
-        factory.setReadTimeout(Duration.ofSeconds(3));
-        return factory;
+    // Keep-alive connection pool to inventory-service, so calls reuse sockets instead of opening one per request.
+    // Pool usage (leased, available, pending) is exported as httpcomponents.httpclient.pool.* with client=inventory.
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager inventoryConnectionManager(MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .setTimeToLive(TimeValue.of(connectionTtl))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "inventory").bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient inventoryHttpClient(PoolingHttpClientConnectionManager inventoryConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(inventoryConnectionManager)
+                .evictIdleConnections(TimeValue.of(idleEviction))
+                .evictExpiredConnections()
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        // fail fast when the pool is saturated instead of queueing behind slow calls
+                        .setConnectionRequestTimeout(Timeout.of(poolAcquireTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .build())
+                // resilience4j owns retries for the inventory calls
+                .disableAutomaticRetries()
+                .build();
+    }
+
+    private ClientHttpRequestFactory getClientRequestFactory(CloseableHttpClient httpClient) {
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
     }
 }
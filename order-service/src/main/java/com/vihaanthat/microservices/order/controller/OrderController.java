@@ -1,11 +1,16 @@
 package com.vihaanthat.microservices.order.controller;
 
 import com.vihaanthat.microservices.order.dto.OrderRequest;
+import com.vihaanthat.microservices.order.dto.OrderStatusResponse;
+import com.vihaanthat.microservices.order.exception.DuplicateOrderException;
 import com.vihaanthat.microservices.order.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
+
 @RestController
 @RequestMapping("/api/order")
 @RequiredArgsConstructor
@@ -14,8 +19,31 @@ public class OrderController {
     private final OrderService orderService;
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public String placeOrder(@RequestBody OrderRequest orderRequest) {
-        orderService.placeOrder(orderRequest);
+    public String placeOrder(@RequestBody OrderRequest orderRequest,
+                             @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+        orderService.placeOrder(orderRequest, idempotencyKey);
         return "Order Placed Successfully";
     }
+
+    // Accept-then-process mode, selected per request with "Prefer: respond-async" (RFC 7240)
+    @PostMapping(headers = "Prefer=respond-async")
+    public ResponseEntity<OrderStatusResponse> acceptOrder(@RequestBody OrderRequest orderRequest,
+                                                           @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+        OrderStatusResponse orderStatus;
+        try {
+            orderStatus = orderService.acceptOrder(orderRequest, idempotencyKey);
+        } catch (DuplicateOrderException e) {
+            // A concurrent request with the same key won the insert; answer with its order
+            orderStatus = orderService.findOrderStatusByIdempotencyKey(idempotencyKey);
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/order/" + orderStatus.orderNumber()))
+                .body(orderStatus);
+    }
+
+    @GetMapping("/{orderNumber}")
+    @ResponseStatus(HttpStatus.OK)
+    public OrderStatusResponse getOrderStatus(@PathVariable String orderNumber) {
+        return orderService.getOrderStatus(orderNumber);
+    }
 }
@@ -1,6 +1,7 @@
 package com.vihaanthat.microservices.order.dto;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 public record OrderRequest(
         Long id,
@@ -8,7 +9,18 @@ public record OrderRequest(
         String skuCode,
         BigDecimal price,
         Integer quantity,
+        List<OrderLineRequest> orderLines,
         UserDetails userDetails
 ) {
+    public record OrderLineRequest(String skuCode, BigDecimal price, Integer quantity) {}
+
     public record UserDetails(String email, String firstName, String lastName) {}
+
+    // Single-item requests (skuCode/price/quantity at the top level) are still accepted as a one-line order
+    public List<OrderLineRequest> lines() {
+        if (orderLines != null && !orderLines.isEmpty()) {
+            return orderLines;
+        }
+        return List.of(new OrderLineRequest(skuCode, price, quantity));
+    }
 }
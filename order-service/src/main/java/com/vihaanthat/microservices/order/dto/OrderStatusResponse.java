@@ -0,0 +1,6 @@
+package com.vihaanthat.microservices.order.dto;
+
+import com.vihaanthat.microservices.order.model.OrderStatus;
+
+public record OrderStatusResponse(String orderNumber, OrderStatus status) {
+}
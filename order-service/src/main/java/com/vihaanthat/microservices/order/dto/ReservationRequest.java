@@ -0,0 +1,4 @@
+package com.vihaanthat.microservices.order.dto;
+
+public record ReservationRequest(String skuCode, Integer quantity) {
+}
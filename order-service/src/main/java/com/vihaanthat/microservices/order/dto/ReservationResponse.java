@@ -0,0 +1,14 @@
+package com.vihaanthat.microservices.order.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record ReservationResponse(String reservationId, String status, Instant expiresAt, List<StockLine> lines) {
+    public boolean isReserved() {
+        return "RESERVED".equals(status);
+    }
+
+    public boolean isConfirmed() {
+        return "CONFIRMED".equals(status);
+    }
+}
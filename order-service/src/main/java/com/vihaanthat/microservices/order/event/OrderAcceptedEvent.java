@@ -0,0 +1,7 @@
+package com.vihaanthat.microservices.order.event;
+
+/**
+ * Published inside the transaction that stores a PENDING order; delivered to listeners after it commits.
+ */
+public record OrderAcceptedEvent(String orderNumber) {
+}
@@ -0,0 +1,7 @@
+package com.vihaanthat.microservices.order.exception;
+
+public class DuplicateOrderException extends RuntimeException {
+    public DuplicateOrderException(String idempotencyKey, Throwable cause) {
+        super("Order with Idempotency-Key " + idempotencyKey + " was already placed", cause);
+    }
+}
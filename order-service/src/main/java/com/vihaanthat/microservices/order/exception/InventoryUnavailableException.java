@@ -0,0 +1,8 @@
+package com.vihaanthat.microservices.order.exception;
+
+// inventory-service could not be reached or did not answer in time; the outcome of the call is unknown
+public class InventoryUnavailableException extends RuntimeException {
+    public InventoryUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
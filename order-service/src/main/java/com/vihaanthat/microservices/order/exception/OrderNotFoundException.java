@@ -0,0 +1,7 @@
+package com.vihaanthat.microservices.order.exception;
+
+public class OrderNotFoundException extends RuntimeException {
+    public OrderNotFoundException(String orderNumber) {
+        super("Order " + orderNumber + " not found");
+    }
+}
@@ -0,0 +1,7 @@
+package com.vihaanthat.microservices.order.exception;
+
+public class OrderPipelineSaturatedException extends RuntimeException {
+    public OrderPipelineSaturatedException() {
+        super("Order placement queue is full, please retry later");
+    }
+}
@@ -7,10 +7,12 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
-@Table(name ="t.orders")
+@Table(name ="t_orders")
 @Getter
 @Setter
 @AllArgsConstructor
@@ -18,12 +20,28 @@ import java.math.BigDecimal;
 
 public class Order {
 
+    // Pooled ids instead of IDENTITY so Hibernate can batch the header and line inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private long id;
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_seq")
+    @SequenceGenerator(name = "order_seq", sequenceName = "t_orders_seq", allocationSize = 50)
+    private Long id;
     private String orderNumber;
-    private String skuCode;
-    private BigDecimal price;
-    private Integer quantity;
+    @Column(unique = true)
+    private String idempotencyKey;
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+    private String email;
+    private String firstName;
+    private String lastName;
+    private Instant createdAt;
+    // Guards against two workers completing the same PENDING order
+    @Version
+    private Long version;
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    private List<OrderLine> orderLines = new ArrayList<>();
 
+    public void addOrderLine(OrderLine orderLine) {
+        orderLine.setOrder(this);
+        orderLines.add(orderLine);
+    }
 }
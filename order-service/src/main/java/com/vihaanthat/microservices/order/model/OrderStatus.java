@@ -0,0 +1,7 @@
+package com.vihaanthat.microservices.order.model;
+
+public enum OrderStatus {
+    PENDING,
+    PLACED,
+    REJECTED
+}
@@ -0,0 +1,29 @@
+package com.vihaanthat.microservices.order.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "t_order_outbox")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String topic;
+    private String messageKey;
+    // Avro single-object encoding of the event, so the relay does not depend on the producer's serializer
+    @Lob
+    private byte[] payload;
+    private Instant createdAt;
+}
@@ -1,10 +1,19 @@
 package com.vihaanthat.microservices.order.repository;
 
 import com.vihaanthat.microservices.order.model.Order;
+import com.vihaanthat.microservices.order.model.OrderStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
+    Optional<Order> findByIdempotencyKey(String idempotencyKey);
+
+    Optional<Order> findByOrderNumber(String orderNumber);
 
+    List<Order> findTop100ByStatusAndCreatedAtBefore(OrderStatus status, Instant createdBefore);
 
 }
@@ -0,0 +1,15 @@
+package com.vihaanthat.microservices.order.repository;
+
+import com.vihaanthat.microservices.order.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // SKIP LOCKED lets several order-service instances drain the outbox without handing out the same rows
+    @Query(value = "select * from t_order_outbox order by id limit :limit for update skip locked", nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("limit") int limit);
+}
@@ -0,0 +1,34 @@
+package com.vihaanthat.microservices.order.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Bounded memory of recently completed Idempotency-Keys, mapped to the order number they created.
+ * It only short-cuts replays on this instance; the unique index on t_orders.idempotency_key is the
+ * authority across instances and after eviction.
+ */
+@Component
+public class IdempotencyKeyCache {
+    private final Cache<String, String> orderNumbersByKey;
+
+    public IdempotencyKeyCache(@Value("${order.idempotency.cache-size:10000}") long maximumSize,
+                               @Value("${order.idempotency.cache-ttl:24h}") Duration ttl) {
+        this.orderNumbersByKey = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public String getOrderNumber(String idempotencyKey) {
+        return orderNumbersByKey.getIfPresent(idempotencyKey);
+    }
+
+    public void put(String idempotencyKey, String orderNumber) {
+        orderNumbersByKey.put(idempotencyKey, orderNumber);
+    }
+}
@@ -0,0 +1,87 @@
+package com.vihaanthat.microservices.order.service;
+
+import com.vihaanthat.microservices.order.event.OrderPlacedEvent;
+import com.vihaanthat.microservices.order.model.OutboxEvent;
+import com.vihaanthat.microservices.order.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the events that {@link OrderService} wrote to the outbox table in the order transaction.
+ * Every linger interval it drains the outbox in batches: a batch is locked, sent to Kafka, and deleted
+ * only once the broker acknowledged all of it, so delivery is at-least-once and survives Kafka outages.
+ */
+@Component
+public class OrderOutboxRelay {
+    private static final Logger log = LoggerFactory.getLogger(OrderOutboxRelay.class);
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, OrderPlacedEvent> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration sendTimeout;
+
+    public OrderOutboxRelay(OutboxEventRepository outboxEventRepository,
+                            KafkaTemplate<String, OrderPlacedEvent> kafkaTemplate,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${order.outbox.batch-size:100}") int batchSize,
+                            @Value("${order.outbox.send-timeout:10s}") Duration sendTimeout) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.sendTimeout = sendTimeout;
+    }
+
+    @Scheduled(fixedDelayString = "${order.outbox.linger-ms:200}")
+    public void drain() {
+        try {
+            Integer published;
+            do {
+                published = transactionTemplate.execute(status -> publishNextBatch());
+            } while (published != null && published == batchSize);
+        } catch (Exception e) {
+            log.warn("Outbox relay could not publish, will retry on next poll: {}", e.getMessage());
+        }
+    }
+
+    private int publishNextBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.lockNextBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<CompletableFuture<SendResult<String, OrderPlacedEvent>>> sends = new ArrayList<>(batch.size());
+        for (OutboxEvent outboxEvent : batch) {
+            sends.add(kafkaTemplate.send(outboxEvent.getTopic(), outboxEvent.getMessageKey(), decode(outboxEvent)));
+        }
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to publish outbox batch", e);
+        }
+        outboxEventRepository.deleteAllInBatch(batch);
+        log.info("Published {} OrderPlacedEvent(s) from the outbox", batch.size());
+        return batch.size();
+    }
+
+    private static OrderPlacedEvent decode(OutboxEvent outboxEvent) {
+        try {
+            return OrderPlacedEvent.fromByteBuffer(ByteBuffer.wrap(outboxEvent.getPayload()));
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot decode outbox event " + outboxEvent.getId(), e);
+        }
+    }
+}
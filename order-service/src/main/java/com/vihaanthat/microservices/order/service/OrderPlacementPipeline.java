@@ -0,0 +1,62 @@
+package com.vihaanthat.microservices.order.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded worker pool that completes accepted orders off the request thread. The fixed number of
+ * workers caps concurrent calls to inventory-service, and the bounded queue turns overload into a
+ * fast 503 at accept time instead of unbounded memory growth.
+ */
+@Component
+public class OrderPlacementPipeline implements DisposableBean {
+    private final ThreadPoolExecutor executor;
+
+    public OrderPlacementPipeline(MeterRegistry meterRegistry,
+                                  @Value("${order.async.workers:16}") int workers,
+                                  @Value("${order.async.queue-capacity:1000}") int queueCapacity) {
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("order-placement-"));
+        Gauge.builder("order.placement.queue.depth", executor, e -> e.getQueue().size())
+                .description("Accepted orders waiting for a placement worker")
+                .register(meterRegistry);
+        Gauge.builder("order.placement.queue.remaining", executor, e -> e.getQueue().remainingCapacity())
+                .description("Free slots in the order placement queue")
+                .register(meterRegistry);
+        Gauge.builder("order.placement.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Orders currently being completed by a placement worker")
+                .register(meterRegistry);
+    }
+
+    public boolean hasCapacity() {
+        return executor.getQueue().remainingCapacity() > 0;
+    }
+
+    /**
+     * Returns false when the queue is full; the order then stays PENDING until the stale-order sweep retries it.
+     */
+    public boolean submit(Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        // Queued orders are PENDING in MySQL and get picked up again after a restart
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
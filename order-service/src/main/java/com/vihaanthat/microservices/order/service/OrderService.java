@@ -2,16 +2,37 @@ package com.vihaanthat.microservices.order.service;
 
 import com.vihaanthat.microservices.order.client.InventoryClient;
 import com.vihaanthat.microservices.order.dto.OrderRequest;
+import com.vihaanthat.microservices.order.dto.OrderStatusResponse;
+import com.vihaanthat.microservices.order.dto.StockCheckResponse;
+import com.vihaanthat.microservices.order.dto.StockLine;
+import com.vihaanthat.microservices.order.event.OrderAcceptedEvent;
 import com.vihaanthat.microservices.order.event.OrderPlacedEvent;
+import com.vihaanthat.microservices.order.exception.DuplicateOrderException;
+import com.vihaanthat.microservices.order.exception.OrderNotFoundException;
+import com.vihaanthat.microservices.order.exception.OrderPipelineSaturatedException;
 import com.vihaanthat.microservices.order.model.Order;
+import com.vihaanthat.microservices.order.model.OrderLine;
+import com.vihaanthat.microservices.order.model.OrderStatus;
+import com.vihaanthat.microservices.order.model.OutboxEvent;
 import com.vihaanthat.microservices.order.repository.OrderRepository;
+import com.vihaanthat.microservices.order.repository.OutboxEventRepository;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -21,34 +42,234 @@ public class OrderService {
     private static final Logger log = LoggerFactory.getLogger(OrderService.class);
     private final OrderRepository orderRepository;
     private final InventoryClient inventoryClient;
-    private final KafkaTemplate<String, OrderPlacedEvent> kafkaTemplate;
+    private final OutboxEventRepository outboxEventRepository;
+    private final IdempotencyKeyCache idempotencyKeyCache;
+    private final StockLevelCache stockLevelCache;
+    private final OrderPlacementPipeline orderPlacementPipeline;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
-    public void placeOrder(OrderRequest orderRequest) {
+    /**
+     * Places the order once per Idempotency-Key: a replayed key returns the original order number
+     * without reserving stock or queueing another event.
+     */
+    public String placeOrder(OrderRequest orderRequest, String idempotencyKey) {
+        String existingOrderNumber = findReplayedOrder(idempotencyKey);
+        if (existingOrderNumber != null) {
+            return existingOrderNumber;
+        }
 
-        boolean inStock = inventoryClient.isInStock(orderRequest.skuCode(),orderRequest.quantity());
+        var lines = orderRequest.lines();
+        var stockLines = lines.stream()
+                .map(line -> new StockLine(line.skuCode(), line.quantity()))
+                .toList();
+        var shortages = stockLevelCache.knownShortages(stockLines);
+        if (!shortages.isEmpty()) {
+            throw new RuntimeException("Product " + String.join(", ", shortages) + " is not in stock");
+        }
+        var outOfStock = checkUncachedStock(stockLines);
+        if (!outOfStock.isEmpty()) {
+            throw new RuntimeException("Product " + String.join(", ", outOfStock) + " is not in stock");
+        }
+        var reservation = inventoryClient.reserveAll(UUID.randomUUID().toString(), stockLines);
 
-        if(inStock) {
+        if(reservation.isReserved()) {
+            releaseReservationOnRollback(reservation.reservationId());
             var order = mapToOrder(orderRequest);
-            orderRepository.save(order);
-            var orderPlacedEvent = new OrderPlacedEvent(order.getOrderNumber(), orderRequest.userDetails()
-                    .email(),
-                    orderRequest.userDetails()
-                            .firstName(),
-                    orderRequest.userDetails()
-                            .lastName());
-            log.info("Start- Sending OrderPlacedEvent for order number: {}", order.getOrderNumber());
-            kafkaTemplate.send("order-placed", orderPlacedEvent);
-            log.info("End- Sending OrderPlacedEvent for order number: {}", order.getOrderNumber());
+            order.setIdempotencyKey(idempotencyKey);
+            order.setStatus(OrderStatus.PLACED);
+            saveOrder(order);
+            queueOrderPlacedEvent(order);
+            confirmReservation(reservation.reservationId());
+            return order.getOrderNumber();
         } else {
-            throw new RuntimeException("Product " + orderRequest.skuCode() + " is not in stock");
+            String skuCodes = lines.stream().map(OrderRequest.OrderLineRequest::skuCode).collect(Collectors.joining(", "));
+            throw new RuntimeException("Product " + skuCodes + " is not in stock");
+        }
+    }
+
+    /**
+     * Stores the order as PENDING and returns straight away; {@link PendingOrderProcessor} reserves the
+     * stock and queues the event on the placement pipeline once this transaction commits. The status is read
+     * in this write transaction, since a replica may not have the order yet.
+     */
+    public OrderStatusResponse acceptOrder(OrderRequest orderRequest, String idempotencyKey) {
+        String existingOrderNumber = findReplayedOrder(idempotencyKey);
+        if (existingOrderNumber != null) {
+            return orderStatus(existingOrderNumber);
+        }
+        if (!orderPlacementPipeline.hasCapacity()) {
+            throw new OrderPipelineSaturatedException();
+        }
+        var order = mapToOrder(orderRequest);
+        order.setIdempotencyKey(idempotencyKey);
+        order.setStatus(OrderStatus.PENDING);
+        saveOrder(order);
+        applicationEventPublisher.publishEvent(new OrderAcceptedEvent(order.getOrderNumber()));
+        return new OrderStatusResponse(order.getOrderNumber(), order.getStatus());
+    }
+
+    // Only an explicit rejection from inventory-service rejects the order; when inventory cannot be reached the
+    // InventoryUnavailableException leaves it PENDING for PendingOrderProcessor to retry
+    public void completePendingOrder(String orderNumber) {
+        Order order = orderRepository.findByOrderNumber(orderNumber).orElse(null);
+        if (order == null || order.getStatus() != OrderStatus.PENDING) {
+            return;
+        }
+        var reservation = inventoryClient.reserveAll(UUID.randomUUID().toString(), order.getOrderLines().stream()
+                .map(line -> new StockLine(line.getSkuCode(), line.getQuantity()))
+                .toList());
+        if (!reservation.isReserved()) {
+            order.setStatus(OrderStatus.REJECTED);
+            log.info("Order {} rejected, not in stock", orderNumber);
+            return;
+        }
+        releaseReservationOnRollback(reservation.reservationId());
+        order.setStatus(OrderStatus.PLACED);
+        queueOrderPlacedEvent(order);
+        orderRepository.flush();
+        confirmReservation(reservation.reservationId());
+    }
+
+    // Read-only, so it may be served by the read replica and trail the primary by up to order.replica.max-lag
+    @Transactional(readOnly = true)
+    public OrderStatusResponse getOrderStatus(String orderNumber) {
+        return orderStatus(orderNumber);
+    }
+
+    // Not read-only: it looks up an order another request has just committed, which a replica may not have yet
+    @Transactional
+    public OrderStatusResponse findOrderStatusByIdempotencyKey(String idempotencyKey) {
+        String orderNumber = findOrderNumber(idempotencyKey);
+        if (orderNumber == null) {
+            throw new OrderNotFoundException(idempotencyKey);
+        }
+        return orderStatus(orderNumber);
+    }
+
+    private OrderStatusResponse orderStatus(String orderNumber) {
+        return orderRepository.findByOrderNumber(orderNumber)
+                .map(order -> new OrderStatusResponse(order.getOrderNumber(), order.getStatus()))
+                .orElseThrow(() -> new OrderNotFoundException(orderNumber));
+    }
+
+    private String findReplayedOrder(String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return null;
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > 255) {
+            throw new IllegalArgumentException("Idempotency-Key must be between 1 and 255 characters");
+        }
+        String existingOrderNumber = findOrderNumber(idempotencyKey);
+        if (existingOrderNumber != null) {
+            log.info("Replaying order {} for Idempotency-Key {}", existingOrderNumber, idempotencyKey);
         }
+        return existingOrderNumber;
     }
+
+    // SKUs the near-cache knows nothing about are checked before reserving. The lines are sorted, so identical
+    // carts send identical requests and concurrent ones share a single call through CoalescingRequestInterceptor;
+    // during a spike on a sold-out SKU that keeps the rejected orders from each trying a reservation
+    private List<String> checkUncachedStock(List<StockLine> stockLines) {
+        List<StockLine> uncached = stockLevelCache.uncached(stockLines).stream()
+                .sorted(Comparator.comparing(StockLine::skuCode).thenComparing(StockLine::quantity))
+                .toList();
+        if (uncached.isEmpty()) {
+            return List.of();
+        }
+        return inventoryClient.checkStock(uncached).stream()
+                .filter(stock -> !stock.inStock())
+                .map(StockCheckResponse::skuCode)
+                .toList();
+    }
+
+    // Written in the same transaction as the order; OrderOutboxRelay publishes it to Kafka
+    private void queueOrderPlacedEvent(Order order) {
+        var orderPlacedEvent = new OrderPlacedEvent(order.getOrderNumber(), order.getEmail(), order.getFirstName(),
+                order.getLastName());
+        outboxEventRepository.save(new OutboxEvent(null, "order-placed", order.getOrderNumber(),
+                encode(orderPlacedEvent), Instant.now()));
+        log.info("Queued OrderPlacedEvent for order number: {}", order.getOrderNumber());
+    }
+
+    private String findOrderNumber(String idempotencyKey) {
+        String cached = idempotencyKeyCache.getOrderNumber(idempotencyKey);
+        if (cached != null) {
+            return cached;
+        }
+        return orderRepository.findByIdempotencyKey(idempotencyKey)
+                .map(order -> {
+                    idempotencyKeyCache.put(idempotencyKey, order.getOrderNumber());
+                    return order.getOrderNumber();
+                })
+                .orElse(null);
+    }
+
+    // Flushed right away so a concurrent request with the same Idempotency-Key is caught by the unique index here,
+    // and the rollback releases this request's reservation
+    private void saveOrder(Order order) {
+        try {
+            orderRepository.saveAndFlush(order);
+        } catch (DataIntegrityViolationException e) {
+            if (order.getIdempotencyKey() == null) {
+                throw e;
+            }
+            throw new DuplicateOrderException(order.getIdempotencyKey(), e);
+        }
+        if (order.getIdempotencyKey() != null) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    idempotencyKeyCache.put(order.getIdempotencyKey(), order.getOrderNumber());
+                }
+            });
+        }
+    }
+
+    // Confirmed last, once the order's writes are flushed: a committed order never rests on a reservation that
+    // inventory-service could still expire. If confirming fails the order rolls back and the stock is released.
+    private void confirmReservation(String reservationId) {
+        var confirmed = inventoryClient.confirm(reservationId);
+        if (!confirmed.isConfirmed()) {
+            throw new IllegalStateException("Reservation " + reservationId + " could not be confirmed, it is "
+                    + confirmed.status());
+        }
+    }
+
+    // Hands the stock back straight away when the order does not commit, including after a confirm
+    private void releaseReservationOnRollback(String reservationId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    inventoryClient.release(reservationId);
+                }
+            }
+        });
+    }
+
+    private static byte[] encode(OrderPlacedEvent orderPlacedEvent) {
+        try {
+            ByteBuffer buffer = orderPlacedEvent.toByteBuffer();
+            byte[] payload = new byte[buffer.remaining()];
+            buffer.get(payload);
+            return payload;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot serialize OrderPlacedEvent", e);
+        }
+    }
+
     public static Order mapToOrder(OrderRequest orderRequest) {
         Order order = new Order();
         order.setOrderNumber(UUID.randomUUID().toString());
-        order.setQuantity(orderRequest.quantity());
-        order.setPrice(orderRequest.price());
-        order.setSkuCode(orderRequest.skuCode());
+        order.setCreatedAt(Instant.now());
+        if (orderRequest.userDetails() != null) {
+            order.setEmail(orderRequest.userDetails().email());
+            order.setFirstName(orderRequest.userDetails().firstName());
+            order.setLastName(orderRequest.userDetails().lastName());
+        }
+        for (var line : orderRequest.lines()) {
+            order.addOrderLine(new OrderLine(null, order, line.skuCode(), line.price(), line.quantity()));
+        }
         return order;
     }
 }
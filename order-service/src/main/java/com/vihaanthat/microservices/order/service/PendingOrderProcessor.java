@@ -0,0 +1,71 @@
+package com.vihaanthat.microservices.order.service;
+
+import com.vihaanthat.microservices.order.event.OrderAcceptedEvent;
+import com.vihaanthat.microservices.order.model.Order;
+import com.vihaanthat.microservices.order.model.OrderStatus;
+import com.vihaanthat.microservices.order.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Feeds accepted orders into {@link OrderPlacementPipeline} once their PENDING row is committed, and
+ * periodically re-queues PENDING orders that were dropped (full queue, restart, worker failure).
+ */
+@Component
+public class PendingOrderProcessor {
+    private static final Logger log = LoggerFactory.getLogger(PendingOrderProcessor.class);
+    private final OrderService orderService;
+    private final OrderRepository orderRepository;
+    private final OrderPlacementPipeline pipeline;
+    private final Duration staleAfter;
+
+    public PendingOrderProcessor(OrderService orderService, OrderRepository orderRepository,
+                                 OrderPlacementPipeline pipeline,
+                                 @Value("${order.async.stale-after:1m}") Duration staleAfter) {
+        this.orderService = orderService;
+        this.orderRepository = orderRepository;
+        this.pipeline = pipeline;
+        this.staleAfter = staleAfter;
+    }
+
+    @TransactionalEventListener
+    public void onOrderAccepted(OrderAcceptedEvent orderAcceptedEvent) {
+        enqueue(orderAcceptedEvent.orderNumber());
+    }
+
+    @Scheduled(fixedDelayString = "${order.async.sweep-interval-ms:30000}")
+    public void requeueStalePendingOrders() {
+        for (Order order : orderRepository.findTop100ByStatusAndCreatedAtBefore(OrderStatus.PENDING,
+                Instant.now().minus(staleAfter))) {
+            if (!enqueue(order.getOrderNumber())) {
+                break;
+            }
+        }
+    }
+
+    private boolean enqueue(String orderNumber) {
+        boolean queued = pipeline.submit(() -> complete(orderNumber));
+        if (!queued) {
+            log.warn("Order placement queue is full, order {} stays PENDING until the next sweep", orderNumber);
+        }
+        return queued;
+    }
+
+    private void complete(String orderNumber) {
+        try {
+            orderService.completePendingOrder(orderNumber);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            log.info("Order {} was completed by another worker", orderNumber);
+        } catch (RuntimeException e) {
+            log.warn("Could not complete order {}, it stays PENDING: {}", orderNumber, e.getMessage());
+        }
+    }
+}
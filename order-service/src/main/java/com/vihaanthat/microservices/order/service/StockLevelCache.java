@@ -0,0 +1,78 @@
+package com.vihaanthat.microservices.order.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vihaanthat.microservices.inventory.event.StockLevelEvent;
+import com.vihaanthat.microservices.order.dto.StockLine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.PartitionOffset;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Near-cache of inventory-service stock levels, fed by its stock-level events. It is only trusted to say
+ * an order cannot be served: a line asking for more than the last published quantity is rejected without
+ * a remote call. Anything else, including SKUs that are not cached, still goes through the reservation,
+ * which stays the authority on whether stock is really there.
+ */
+@Component
+public class StockLevelCache {
+    private final Cache<String, Integer> quantitiesBySku;
+    private final Counter shortCircuits;
+    private final Counter passThroughs;
+
+    public StockLevelCache(@Value("${order.stock-cache.size:100000}") long maximumSize,
+                           @Value("${order.stock-cache.ttl:30s}") Duration ttl,
+                           MeterRegistry meterRegistry) {
+        this.quantitiesBySku = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.shortCircuits = Counter.builder("order.stock-cache.lookups")
+                .tag("result", "rejected-locally")
+                .register(meterRegistry);
+        this.passThroughs = Counter.builder("order.stock-cache.lookups")
+                .tag("result", "remote")
+                .register(meterRegistry);
+    }
+
+    // Each instance keeps its own copy, so every instance assigns itself every partition instead of joining a
+    // consumer group, and reads them from the start on each startup; the topic is compacted, so that only
+    // replays the latest level per SKU. The group id is never joined, it only names where offsets get committed.
+    @KafkaListener(groupId = "order-service-stock-cache", topicPartitions = @TopicPartition(
+            topic = "${order.stock-cache.topic:inventory-stock-levels}",
+            partitions = "${order.stock-cache.partitions:0-2}",
+            partitionOffsets = @PartitionOffset(partition = "*", initialOffset = "0")))
+    public void onStockLevel(StockLevelEvent stockLevelEvent) {
+        quantitiesBySku.put(stockLevelEvent.getSkuCode().toString(), stockLevelEvent.getQuantity());
+    }
+
+    /**
+     * Returns the SKUs whose last known quantity is below what the order asks for; empty when the order
+     * has to be checked by inventory-service.
+     */
+    public List<String> knownShortages(List<StockLine> lines) {
+        List<String> shortages = lines.stream()
+                .filter(line -> {
+                    Integer available = quantitiesBySku.getIfPresent(line.skuCode());
+                    return available != null && available < line.quantity();
+                })
+                .map(StockLine::skuCode)
+                .toList();
+        (shortages.isEmpty() ? passThroughs : shortCircuits).increment();
+        return shortages;
+    }
+
+    // Lines whose SKU has no published level here; these are checked with inventory-service before reserving
+    public List<StockLine> uncached(List<StockLine> lines) {
+        return lines.stream()
+                .filter(line -> quantitiesBySku.getIfPresent(line.skuCode()) == null)
+                .toList();
+    }
+}
@@ -0,0 +1,31 @@
+CREATE TABLE t_order_lines (
+    id BIGINT NOT NULL,
+    order_id BIGINT NOT NULL,
+    sku_code VARCHAR(255),
+    price DECIMAL(19,2),
+    quantity INT,
+    PRIMARY KEY (id),
+    KEY idx_order_lines_order_id (order_id),
+    CONSTRAINT fk_order_lines_order FOREIGN KEY (order_id) REFERENCES t_orders (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Every existing single-item order becomes a one-line order
+INSERT INTO t_order_lines (id, order_id, sku_code, price, quantity)
+SELECT id, id, sku_code, price, quantity FROM t_orders;
+
+ALTER TABLE t_orders
+    DROP COLUMN sku_code,
+    DROP COLUMN price,
+    DROP COLUMN quantity;
+
+-- Hibernate emulates sequences with single-row tables on MySQL. With the pooled optimizer the stored
+-- value is the top of the next block of 50 ids, so start one full block above the existing ids.
+CREATE TABLE t_orders_seq (
+    next_val BIGINT
+) ENGINE=InnoDB;
+INSERT INTO t_orders_seq SELECT COALESCE(MAX(id), 0) + 50 FROM t_orders;
+
+CREATE TABLE t_order_lines_seq (
+    next_val BIGINT
+) ENGINE=InnoDB;
+INSERT INTO t_order_lines_seq SELECT COALESCE(MAX(id), 0) + 50 FROM t_order_lines;
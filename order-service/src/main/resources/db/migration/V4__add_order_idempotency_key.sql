@@ -0,0 +1,3 @@
+ALTER TABLE t_orders
+    ADD COLUMN idempotency_key VARCHAR(255) DEFAULT NULL,
+    ADD UNIQUE KEY uk_orders_idempotency_key (idempotency_key);
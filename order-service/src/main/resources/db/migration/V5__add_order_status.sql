@@ -0,0 +1,11 @@
+-- Orders accepted asynchronously are stored PENDING with the customer details needed for OrderPlacedEvent
+ALTER TABLE t_orders
+    ADD COLUMN status VARCHAR(16) NOT NULL DEFAULT 'PLACED',
+    ADD COLUMN email VARCHAR(255) DEFAULT NULL,
+    ADD COLUMN first_name VARCHAR(255) DEFAULT NULL,
+    ADD COLUMN last_name VARCHAR(255) DEFAULT NULL,
+    ADD COLUMN created_at TIMESTAMP(6) NULL DEFAULT NULL,
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0,
+    ADD KEY idx_orders_status_created_at (status, created_at);
+
+CREATE UNIQUE INDEX uk_orders_order_number ON t_orders (order_number);
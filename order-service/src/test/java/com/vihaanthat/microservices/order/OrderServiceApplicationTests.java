@@ -13,6 +13,8 @@ import org.springframework.context.annotation.Import;
 import org.springframework.test.context.TestPropertySource;
 import org.testcontainers.containers.MySQLContainer;
 
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+
 @Import(TestcontainersConfiguration.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureWireMock(port = 0)
@@ -62,6 +64,129 @@ class OrderServiceApplicationTests {
 
         assert(responseBodyString.equals("Order Placed Successfully"));
     }
+    @Test
+    void shouldSubmitMultiLineOrder() {
+        String submitOrderJson = """
+                {
+                    "orderLines": [
+                        {"skuCode": "iphone_13", "price": 999.99, "quantity": 2},
+                        {"skuCode": "iphone_13_red", "price": 1099.99, "quantity": 1}
+                    ],
+                    "userDetails": {"email": "jane@example.com", "firstName": "Jane", "lastName": "Doe"}
+                }
+                """;
+
+        InventoryClientStub.stubInventoryCall("iphone_13", 2);
+
+        var responseBodyString = RestAssured.given()
+                .contentType(ContentType.JSON)
+                .body(submitOrderJson)
+                .when()
+                .post("/api/order")
+                .then()
+                .log().all()
+                .statusCode(201)
+                .extract().body().asString();
+
+        assert(responseBodyString.equals("Order Placed Successfully"));
+    }
+
+    @Test
+    void shouldReplayOrderWithSameIdempotencyKey() {
+        String submitOrderJson = """
+                {
+                    "skuCode": "iphone_13_blue",
+                    "price": 999.99,
+                    "quantity": 1,
+                    "userDetails": {"email": "jane@example.com", "firstName": "Jane", "lastName": "Doe"}
+                }
+                """;
+
+        InventoryClientStub.stubInventoryCall("iphone_13_blue", 1);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            var responseBodyString = RestAssured.given()
+                    .contentType(ContentType.JSON)
+                    .header("Idempotency-Key", "checkout-42")
+                    .body(submitOrderJson)
+                    .when()
+                    .post("/api/order")
+                    .then()
+                    .log().all()
+                    .statusCode(201)
+                    .extract().body().asString();
+
+            assert(responseBodyString.equals("Order Placed Successfully"));
+        }
+
+        verify(1, postRequestedFor(urlPathEqualTo("/api/inventory/reservations/batch"))
+                .withRequestBody(matchingJsonPath("$[0].skuCode", equalTo("iphone_13_blue"))));
+    }
+
+    @Test
+    void shouldAcceptOrderAsynchronouslyAndExposeItsStatus() throws InterruptedException {
+        String submitOrderJson = """
+                {
+                    "skuCode": "iphone_13_green",
+                    "price": 999.99,
+                    "quantity": 1,
+                    "userDetails": {"email": "jane@example.com", "firstName": "Jane", "lastName": "Doe"}
+                }
+                """;
+
+        InventoryClientStub.stubInventoryCall("iphone_13_green", 1);
+
+        String location = RestAssured.given()
+                .contentType(ContentType.JSON)
+                .header("Prefer", "respond-async")
+                .body(submitOrderJson)
+                .when()
+                .post("/api/order")
+                .then()
+                .log().all()
+                .statusCode(202)
+                .extract().header("Location");
+
+        String status = null;
+        for (int attempt = 0; attempt < 50 && !"PLACED".equals(status); attempt++) {
+            Thread.sleep(100);
+            status = RestAssured.given()
+                    .when()
+                    .get(location)
+                    .then()
+                    .statusCode(200)
+                    .extract().path("status");
+        }
+
+        assert("PLACED".equals(status));
+    }
+
+    @Test
+    void shouldNotPlaceOrderWhoseReservationCannotBeConfirmed() {
+        String submitOrderJson = """
+                {
+                    "skuCode": "iphone_13_black",
+                    "price": 999.99,
+                    "quantity": 1
+                }
+                """;
+
+        InventoryClientStub.stubInventoryCallConfirmFailing("iphone_13_black", 1);
+
+        RestAssured.given()
+                .contentType(ContentType.JSON)
+                .body(submitOrderJson)
+                .when()
+                .post("/api/order")
+                .then()
+                .log().all()
+                .statusCode(503);
+
+        verify(postRequestedFor(urlPathEqualTo("/api/inventory/reservations/batch"))
+                .withHeader("Idempotency-Key", matching(".+")));
+        verify(postRequestedFor(urlPathEqualTo("/api/inventory/reservations/reservation-iphone_13_black/release")));
+    }
+
     @Test
     void shouldFailToSubmitOrderWhenItemNotInStock() {
         String submitOrderJson = """
@@ -0,0 +1,118 @@
+package com.vihaanthat.microservices.order.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoalescingRequestInterceptorTests {
+    private static final byte[] CART = "[{\"skuCode\":\"iphone_13\",\"quantity\":1}]".getBytes(StandardCharsets.UTF_8);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CoalescingRequestInterceptor interceptor = new CoalescingRequestInterceptor(meterRegistry);
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Test
+    void shouldShareOneCallBetweenIdenticalInFlightLookups() throws Exception {
+        ClientHttpRequestExecution execution = blockingExecution(() -> new MockClientHttpResponse(
+                "[{\"inStock\":true}]".getBytes(StandardCharsets.UTF_8), HttpStatus.OK));
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> call(execution));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> call(execution));
+        awaitCount("coalesced", 1);
+        release.countDown();
+
+        assertEquals("[{\"inStock\":true}]", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("[{\"inStock\":true}]", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        assertEquals(0.5, meterRegistry.get("order.inventory.lookups.dedup-ratio").gauge().value());
+    }
+
+    @Test
+    void shouldHandTheLeadersFailureToEveryFollower() throws Exception {
+        ClientHttpRequestExecution execution = blockingExecution(() -> {
+            throw new IOException("inventory-service reset the connection");
+        });
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> call(execution));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> call(execution));
+        awaitCount("coalesced", 1);
+        release.countDown();
+
+        assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void shouldNeverCoalesceReservations() throws Exception {
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.POST,
+                URI.create("http://inventory/api/inventory/reservations/batch"));
+        ClientHttpRequestExecution execution = (httpRequest, body) -> {
+            calls.incrementAndGet();
+            return new MockClientHttpResponse(new byte[0], HttpStatus.CREATED);
+        };
+
+        interceptor.intercept(request, CART, execution).close();
+        interceptor.intercept(request, CART, execution).close();
+
+        assertEquals(2, calls.get());
+        assertEquals(0, meterRegistry.counter("order.inventory.lookups", "outcome", "executed").count());
+    }
+
+    private ClientHttpRequestExecution blockingExecution(ResponseSupplier response) {
+        return (request, body) -> {
+            calls.incrementAndGet();
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return response.get();
+        };
+    }
+
+    private String call(ClientHttpRequestExecution execution) {
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.POST,
+                URI.create("http://inventory/api/inventory/batch"));
+        try (ClientHttpResponse response = interceptor.intercept(request, CART, execution)) {
+            return new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // The follower counts itself as coalesced just before it parks on the leader's call
+    private void awaitCount(String outcome, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.counter("order.inventory.lookups", "outcome", outcome).count() < count
+                && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private interface ResponseSupplier {
+        ClientHttpResponse get() throws IOException;
+    }
+}
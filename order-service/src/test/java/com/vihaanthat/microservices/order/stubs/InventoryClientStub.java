@@ -6,22 +6,53 @@ import static com.github.tomakehurst.wiremock.client.WireMock.*;
 @UtilityClass
 public class InventoryClientStub {
     public void stubInventoryCall(String skuCode, Integer quantity) {
-        stubFor(get(urlPathEqualTo("/api/inventory"))
-                .withQueryParam("skuCode", equalTo(skuCode))
-                .withQueryParam("quantity", equalTo(quantity.toString()))
+        stubStockCheck(skuCode, quantity, true);
+        stubFor(post(urlPathEqualTo("/api/inventory/reservations/batch"))
+                .withRequestBody(matchingJsonPath("$[0].skuCode", equalTo(skuCode)))
+                .withRequestBody(matchingJsonPath("$[0].quantity", equalTo(quantity.toString())))
+                .willReturn(aResponse()
+                .withStatus(201)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(reservationBody("\"reservation-" + skuCode + "\"", skuCode, quantity, "RESERVED"))));
+        stubFor(post(urlPathMatching("/api/inventory/reservations/[^/]+/(confirm|release)"))
                 .willReturn(aResponse()
                 .withStatus(200)
                         .withHeader("Content-Type", "application/json")
-                        .withBody("true")));
+                        .withBody(reservationBody("\"reservation-" + skuCode + "\"", skuCode, quantity, "CONFIRMED"))));
+    }
+
+    // The reservation succeeds but inventory-service fails every confirm
+    public void stubInventoryCallConfirmFailing(String skuCode, Integer quantity) {
+        stubInventoryCall(skuCode, quantity);
+        stubFor(post(urlPathMatching("/api/inventory/reservations/[^/]+/confirm"))
+                .willReturn(aResponse().withStatus(503)));
     }
 
     public void stubInventoryCallOutOfStock(String skuCode, Integer quantity) {
-        stubFor(get(urlPathEqualTo("/api/inventory"))
-                .withQueryParam("skuCode", equalTo(skuCode))
-                .withQueryParam("quantity", equalTo(quantity.toString()))
+        stubStockCheck(skuCode, quantity, false);
+        stubFor(post(urlPathEqualTo("/api/inventory/reservations/batch"))
+                .withRequestBody(matchingJsonPath("$[0].skuCode", equalTo(skuCode)))
+                .withRequestBody(matchingJsonPath("$[0].quantity", equalTo(quantity.toString())))
+                .willReturn(aResponse()
+                .withStatus(409)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(reservationBody("null", skuCode, quantity, "REJECTED"))));
+    }
+
+    private void stubStockCheck(String skuCode, Integer quantity, boolean inStock) {
+        stubFor(post(urlPathEqualTo("/api/inventory/batch"))
+                .withRequestBody(matchingJsonPath("$[0].skuCode", equalTo(skuCode)))
                 .willReturn(aResponse()
                 .withStatus(200)
                         .withHeader("Content-Type", "application/json")
-                        .withBody("false")));
+                        .withBody("""
+                                [{"skuCode": "%s", "quantity": %d, "inStock": %s}]
+                                """.formatted(skuCode, quantity, inStock))));
+    }
+
+    private String reservationBody(String reservationId, String skuCode, Integer quantity, String status) {
+        return """
+                {"reservationId": %s, "status": "%s", "lines": [{"skuCode": "%s", "quantity": %d}]}
+                """.formatted(reservationId, status, skuCode, quantity);
     }
 }
@@ -0,0 +1,47 @@
+package com.vihaanthat.microservices.product_service.config;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.vihaanthat.microservices.product_service.service.ProductCache;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.MessageListener;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+
+/**
+ * Invalidates {@link ProductCache} entries for writes made by other instances or directly in MongoDB.
+ * Change streams need a replica set; on a standalone server the subscription fails, which is logged,
+ * and the cache falls back to its TTL.
+ */
+@Configuration
+@ConditionalOnProperty(name = "product.cache.change-stream.enabled", havingValue = "true", matchIfMissing = true)
+public class ProductChangeStreamConfig {
+    private static final Logger log = LoggerFactory.getLogger(ProductChangeStreamConfig.class);
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public MessageListenerContainer productChangeStreamContainer(MongoTemplate mongoTemplate, ProductCache productCache) {
+        MessageListener<ChangeStreamDocument<Document>, Document> listener = message -> {
+            BsonDocument documentKey = message.getRaw().getDocumentKey();
+            BsonValue id = documentKey == null ? null : documentKey.get("_id");
+            if (id == null) {
+                // drop, rename or invalidate of the collection
+                productCache.invalidateAll();
+            } else {
+                productCache.invalidate(id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.toString());
+            }
+        };
+        MessageListenerContainer container = new DefaultMessageListenerContainer(mongoTemplate);
+        container.register(ChangeStreamRequest.builder(listener).collection("product").build(), Document.class,
+                error -> log.warn("Product change stream failed, cached products expire by TTL only: {}",
+                        error.getMessage()));
+        return container;
+    }
+}
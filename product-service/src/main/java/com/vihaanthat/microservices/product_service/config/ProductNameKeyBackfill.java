@@ -0,0 +1,32 @@
+package com.vihaanthat.microservices.product_service.config;
+
+import com.vihaanthat.microservices.product_service.model.Product;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+// Fills nameKey on products written before prefix search existed, in one server-side update
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductNameKeyBackfill {
+    private final MongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillNameKeys() {
+        long updated = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("nameKey").exists(false).and("name").exists(true)),
+                AggregationUpdate.update().set("nameKey").toValue(StringOperators.valueOf("name").toLower()),
+                Product.class).getModifiedCount();
+        if (updated > 0) {
+            log.info("Backfilled nameKey on {} products", updated);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.vihaanthat.microservices.product_service.controller;
+
+import com.vihaanthat.microservices.product_service.dto.ProductResponse;
+import com.vihaanthat.microservices.product_service.service.CatalogListing;
+import com.vihaanthat.microservices.product_service.service.ProductService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * GET /api/product rendered by Jackson from the cached {@link CatalogListing}, used when
+ * product.snapshot.enabled=false; otherwise {@link CatalogSnapshotController} serves the path.
+ */
+@RestController
+@RequestMapping("/api/product")
+@RequiredArgsConstructor
+@Profile("!reactive")
+@ConditionalOnProperty(name = "product.snapshot.enabled", havingValue = "false")
+public class CatalogListingController {
+    private final ProductService productService;
+
+    // Conditional GET: Spring answers a client holding this ETag with 304 instead of rendering the listing
+    @GetMapping
+    public ResponseEntity<List<ProductResponse>> getAllProducts() {
+        CatalogListing listing = productService.getCatalogListing();
+        return ResponseEntity.ok()
+                .eTag(listing.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(listing.products());
+    }
+}
@@ -0,0 +1,109 @@
+package com.vihaanthat.microservices.product_service.controller;
+
+import com.vihaanthat.microservices.product_service.service.CatalogSnapshot;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * GET /api/product served from the pre-rendered {@link CatalogSnapshot} files instead of a Jackson rendering.
+ * The handler writes the response itself, so it returns nothing; with product.snapshot.enabled=false
+ * {@link CatalogListingController} serves the path instead.
+ */
+@RestController
+@RequestMapping("/api/product")
+@RequiredArgsConstructor
+@Profile("!reactive")
+@ConditionalOnProperty(name = "product.snapshot.enabled", havingValue = "true", matchIfMissing = true)
+public class CatalogSnapshotController {
+    private final CatalogSnapshot catalogSnapshot;
+
+    // Conditional GET: a client holding the current ETag of the encoding it accepts gets 304
+    @GetMapping
+    public void getCatalogSnapshot(WebRequest webRequest, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        CatalogSnapshot.Snapshot snapshot = catalogSnapshot.current();
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        // Vary first, so a 304 carries it too
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!webRequest.checkNotModified(gzip ? snapshot.gzipEtag() : snapshot.etag())) {
+            writeSnapshot(snapshot, gzip, request, response);
+        }
+    }
+
+    // Tomcat's sendfile hands the file to the kernel (no copy through the JVM); other connectors get the file
+    // transferred to the response stream
+    private static void writeSnapshot(CatalogSnapshot.Snapshot snapshot, boolean gzip, HttpServletRequest request,
+                                      HttpServletResponse response) throws IOException {
+        Path file = gzip ? snapshot.gzip() : snapshot.json();
+        long length = gzip ? snapshot.gzipLength() : snapshot.jsonLength();
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentLengthLong(length);
+        if (Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            request.setAttribute("org.apache.tomcat.sendfile.filename", file.toAbsolutePath().toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", 0L);
+            request.setAttribute("org.apache.tomcat.sendfile.end", length);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < length) {
+                position += channel.transferTo(position, length - position, out);
+            }
+        }
+    }
+
+    // Accept-Encoding read with its q-values: gzip when gzip, or failing that "*", is listed with a q above zero
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1.0;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        q = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = q;
+            } else if (coding.equals("*")) {
+                any = q;
+            }
+        }
+        Double weight = gzip != null ? gzip : any;
+        return weight != null && weight > 0;
+    }
+}
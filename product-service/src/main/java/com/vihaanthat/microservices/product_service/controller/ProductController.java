@@ -1,18 +1,30 @@
 package com.vihaanthat.microservices.product_service.controller;
 
+import com.vihaanthat.microservices.product_service.dto.BulkIngestResponse;
+import com.vihaanthat.microservices.product_service.dto.ProductFilter;
+import com.vihaanthat.microservices.product_service.dto.ProductPage;
 import com.vihaanthat.microservices.product_service.dto.ProductRequest;
 import com.vihaanthat.microservices.product_service.dto.ProductResponse;
-import com.vihaanthat.microservices.product_service.model.Product;
 import com.vihaanthat.microservices.product_service.service.ProductService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
 import java.util.List;
 
+// The "reactive" profile serves these paths from ReactiveProductRoutes instead
 @RestController
 @RequestMapping("/api/product")
 @RequiredArgsConstructor
+@Profile("!reactive")
 public class ProductController {
     private final ProductService productService;
 
@@ -22,10 +34,67 @@ public class ProductController {
         return productService.createProduct(productRequest);
     }
 
-    @GetMapping
+    // Supplier imports: a JSON array or NDJSON of products, read as a stream and written in unordered batches;
+    // with upsert=true products are matched by skuCode and updated in place
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
     @ResponseStatus(HttpStatus.OK)
-    public List<ProductResponse> getAllProducts() {
-        return productService.getAllProducts();
+    public BulkIngestResponse ingestProducts(HttpServletRequest request,
+                                             @RequestParam(defaultValue = "false") boolean upsert) throws IOException {
+        return productService.ingestProducts(request.getInputStream(), upsert);
+    }
+
+    // Ranked full-text search over name, SKU and description
+    @GetMapping("/search")
+    @ResponseStatus(HttpStatus.OK)
+    public List<ProductResponse> searchProducts(@RequestParam String q,
+                                                @RequestParam(defaultValue = "20") int limit) {
+        return productService.searchProducts(q, limit);
+    }
+
+    // Case-insensitive name prefix for autocomplete; returns id, name and skuCode only
+    @GetMapping("/autocomplete")
+    @ResponseStatus(HttpStatus.OK)
+    public List<ProductResponse> autocomplete(@RequestParam String prefix,
+                                              @RequestParam(defaultValue = "10") int limit) {
+        return productService.autocomplete(prefix, limit);
+    }
+
+    @GetMapping("/{id}")
+    @ResponseStatus(HttpStatus.OK)
+    public ProductResponse getProduct(@PathVariable String id) {
+        return productService.getProduct(id);
+    }
+
+    @GetMapping("/sku/{skuCode}")
+    @ResponseStatus(HttpStatus.OK)
+    public ProductResponse getProductBySku(@PathVariable String skuCode) {
+        return productService.getProductBySku(skuCode);
+    }
+
+    // Paged listing, selected by the limit parameter; pass the returned nextCursor as cursor for the next page
+    @GetMapping(params = "limit")
+    @ResponseStatus(HttpStatus.OK)
+    public ProductPage getProducts(@RequestParam int limit,
+                                   @RequestParam(required = false) String cursor,
+                                   @RequestParam(required = false) String skuCode,
+                                   @RequestParam(required = false) String namePrefix,
+                                   @RequestParam(required = false) BigDecimal minPrice,
+                                   @RequestParam(required = false) BigDecimal maxPrice,
+                                   @RequestParam(required = false) List<String> fields) {
+        return productService.getProducts(new ProductFilter(skuCode, namePrefix, minPrice, maxPrice), cursor, limit,
+                fields);
+    }
 
+    // Full catalog as NDJSON for bulk consumers (search indexing, price feeds), streamed from a Mongo cursor
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(required = false) String skuCode,
+                                                                @RequestParam(required = false) String namePrefix,
+                                                                @RequestParam(required = false) BigDecimal minPrice,
+                                                                @RequestParam(required = false) BigDecimal maxPrice) {
+        ProductFilter filter = new ProductFilter(skuCode, namePrefix, minPrice, maxPrice);
+        StreamingResponseBody body = out -> productService.exportProducts(filter, new BufferedOutputStream(out, 64 * 1024));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
     }
 }
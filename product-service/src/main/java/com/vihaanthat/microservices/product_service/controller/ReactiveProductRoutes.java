@@ -0,0 +1,49 @@
+package com.vihaanthat.microservices.product_service.controller;
+
+import com.vihaanthat.microservices.product_service.dto.ProductRequest;
+import com.vihaanthat.microservices.product_service.dto.ProductResponse;
+import com.vihaanthat.microservices.product_service.repository.ProductNameKeyCallback;
+import com.vihaanthat.microservices.product_service.repository.ReactiveProductRepository;
+import com.vihaanthat.microservices.product_service.service.ProductService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * Product endpoints for the opt-in "reactive" profile (WebFlux on Netty with the reactive Mongo driver),
+ * replacing {@link ProductController}. Reads are streamed as a {@code Flux<ProductResponse>}, so a slow
+ * client holds a connection and a cursor but no thread.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveProductRoutes {
+
+    @Bean
+    public RouterFunction<ServerResponse> productRoutes(ReactiveProductRepository productRepository) {
+        return route()
+                .path("/api/product", builder -> builder
+                        .GET("", request -> ServerResponse.ok()
+                                .contentType(request.headers().accept().contains(MediaType.APPLICATION_NDJSON)
+                                        ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                                .body(productRepository.findAll().map(ProductService::mapToProductResponse),
+                                        ProductResponse.class))
+                        .GET("/{id}", request -> productRepository.findById(request.pathVariable("id"))
+                                .map(ProductService::mapToProductResponse)
+                                .flatMap(product -> ServerResponse.ok().bodyValue(product))
+                                .switchIfEmpty(Mono.defer(() -> ServerResponse.notFound().build())))
+                        .POST("", request -> request.bodyToMono(ProductRequest.class)
+                                .map(ProductService::mapToProduct)
+                                .doOnNext(product -> product.setNameKey(ProductNameKeyCallback.nameKey(product.getName())))
+                                .flatMap(productRepository::save)
+                                .map(ProductService::mapToProductResponse)
+                                .flatMap(product -> ServerResponse.status(HttpStatus.CREATED).bodyValue(product))))
+                .build();
+    }
+}
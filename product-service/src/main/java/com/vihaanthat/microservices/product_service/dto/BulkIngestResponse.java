@@ -0,0 +1,10 @@
+package com.vihaanthat.microservices.product_service.dto;
+
+import java.util.List;
+
+// index is the item's position in the request body, counted from 0
+public record BulkIngestResponse(int received, int inserted, int updated, List<ItemError> errors) {
+
+    public record ItemError(int index, String skuCode, String message) {
+    }
+}
@@ -0,0 +1,6 @@
+package com.vihaanthat.microservices.product_service.dto;
+
+import java.math.BigDecimal;
+
+public record ProductFilter(String skuCode, String namePrefix, BigDecimal minPrice, BigDecimal maxPrice) {
+}
@@ -0,0 +1,7 @@
+package com.vihaanthat.microservices.product_service.dto;
+
+import java.util.List;
+
+// nextCursor is null on the last page
+public record ProductPage(List<ProductResponse> items, String nextCursor) {
+}
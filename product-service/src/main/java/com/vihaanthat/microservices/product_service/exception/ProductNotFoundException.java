@@ -0,0 +1,7 @@
+package com.vihaanthat.microservices.product_service.exception;
+
+public class ProductNotFoundException extends RuntimeException {
+    public ProductNotFoundException(String idOrSkuCode) {
+        super("Product " + idOrSkuCode + " not found");
+    }
+}
@@ -5,9 +5,17 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+// One index per paged listing filter, each ending in _id so it returns the page in that filter's ProductOrder
+// (key, then id) without an in-memory sort
 @Document(value = "product")
+@CompoundIndex(name = "sku_code_id", def = "{'skuCode': 1, '_id': 1}")
+@CompoundIndex(name = "name_id", def = "{'name': 1, '_id': 1}")
+@CompoundIndex(name = "price_id", def = "{'price': 1, '_id': 1}")
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
@@ -16,8 +24,17 @@ import org.springframework.data.mongodb.core.mapping.Document;
 public class Product {
     @Id
     private String id;
+    @TextIndexed(weight = 3)
     private String name;
+    @TextIndexed
     private String description;
+    // Unique, since bulk upserts match on it; products created without a SKU are left out of the index
+    @TextIndexed(weight = 2)
+    @Indexed(name = "sku_code_unique", unique = true, partialFilter = "{ 'skuCode': { '$type': 'string' } }")
     private String skuCode;
-    private double price;
+    // Boxed so a page that does not project the price leaves it null
+    private Double price;
+    // Lower-cased name for case-insensitive prefix search; filled by ProductNameKeyCallback on every save
+    @Indexed
+    private String nameKey;
 }
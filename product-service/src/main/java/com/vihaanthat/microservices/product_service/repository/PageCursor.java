@@ -0,0 +1,44 @@
+package com.vihaanthat.microservices.product_service.repository;
+
+import com.vihaanthat.microservices.product_service.model.Product;
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position after the last product of a page: its id, plus the value of the field the page is ordered by.
+ * Id-ordered pages keep the plain id as their cursor; name- and price-ordered ones encode the order, id and
+ * key as URL-safe base64, so a cursor cannot be replayed against a filter with a different order.
+ */
+public record PageCursor(ProductOrder order, ObjectId id, Object key) {
+
+    public static PageCursor after(ProductOrder order, Product product) {
+        return new PageCursor(order, new ObjectId(product.getId()), order.key(product));
+    }
+
+    public static PageCursor parse(String cursor, ProductOrder order) {
+        try {
+            if (order == ProductOrder.ID) {
+                return new PageCursor(order, new ObjectId(cursor), null);
+            }
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 3);
+            if (parts.length != 3 || !parts[0].equals(order.name())) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            Object key = order == ProductOrder.PRICE ? (Object) Double.valueOf(parts[2]) : parts[2];
+            return new PageCursor(order, new ObjectId(parts[1]), key);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (order == ProductOrder.ID) {
+            return id.toHexString();
+        }
+        String value = order.name() + ":" + id.toHexString() + ":" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,22 @@
+package com.vihaanthat.microservices.product_service.repository;
+
+import com.vihaanthat.microservices.product_service.model.Product;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+// Keeps Product.nameKey in step with the name for every save and insert, whichever code path writes it
+@Component
+public class ProductNameKeyCallback implements BeforeConvertCallback<Product> {
+
+    @Override
+    public Product onBeforeConvert(Product product, String collection) {
+        product.setNameKey(nameKey(product.getName()));
+        return product;
+    }
+
+    public static String nameKey(String name) {
+        return name == null ? null : name.toLowerCase(Locale.ROOT);
+    }
+}
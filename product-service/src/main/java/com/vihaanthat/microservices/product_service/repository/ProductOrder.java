@@ -0,0 +1,53 @@
+package com.vihaanthat.microservices.product_service.repository;
+
+import com.vihaanthat.microservices.product_service.dto.ProductFilter;
+import com.vihaanthat.microservices.product_service.model.Product;
+import org.springframework.data.domain.Sort;
+
+import java.util.function.Function;
+
+/**
+ * Order of a filtered listing, picked so the index that serves the filter also returns the documents in that
+ * order and no in-memory sort is needed: a skuCode match is read from {skuCode, _id} in id order, a name prefix
+ * from {name, _id} in name order and a price range from {price, _id} in price order. Ties are broken by id, so
+ * a page ends on a unique (key, id) pair that the next page seeks past.
+ */
+public enum ProductOrder {
+    ID(null, null),
+    NAME("name", Product::getName),
+    PRICE("price", Product::getPrice);
+
+    private final String field;
+    private final Function<Product, Object> key;
+
+    ProductOrder(String field, Function<Product, Object> key) {
+        this.field = field;
+        this.key = key;
+    }
+
+    public static ProductOrder of(ProductFilter filter) {
+        if (filter.skuCode() != null) {
+            return ID;
+        }
+        if (filter.namePrefix() != null) {
+            return NAME;
+        }
+        if (filter.minPrice() != null || filter.maxPrice() != null) {
+            return PRICE;
+        }
+        return ID;
+    }
+
+    // Null when products are ordered by id alone
+    public String field() {
+        return field;
+    }
+
+    Object key(Product product) {
+        return key == null ? null : key.apply(product);
+    }
+
+    Sort sort() {
+        return field == null ? Sort.by(Sort.Direction.ASC, "_id") : Sort.by(Sort.Direction.ASC, field, "_id");
+    }
+}
@@ -3,5 +3,8 @@ package com.vihaanthat.microservices.product_service.repository;
 import com.vihaanthat.microservices.product_service.model.Product;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface ProductRepository extends MongoRepository<Product, String> {
+import java.util.Optional;
+
+public interface ProductRepository extends MongoRepository<Product, String>, ProductRepositoryCustom {
+    Optional<Product> findFirstBySkuCode(String skuCode);
 }
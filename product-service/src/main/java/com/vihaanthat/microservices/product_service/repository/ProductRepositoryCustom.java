@@ -0,0 +1,38 @@
+package com.vihaanthat.microservices.product_service.repository;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.vihaanthat.microservices.product_service.dto.ProductFilter;
+import com.vihaanthat.microservices.product_service.model.Product;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public interface ProductRepositoryCustom {
+    /**
+     * Returns up to {@code limit} products matching {@code filter} that come after {@code after} (or from the
+     * start when it is null), in the filter's {@link ProductOrder}. Only {@code fields} are loaded besides the
+     * id and the order's key; an empty set loads the whole document.
+     */
+    List<Product> findPage(ProductFilter filter, PageCursor after, int limit, Set<String> fields);
+
+    /**
+     * Streams every product matching {@code filter} in the filter's {@link ProductOrder} from an open Mongo
+     * cursor, fetching {@code batchSize} documents per round trip. The stream must be closed to release the cursor.
+     */
+    Stream<Product> streamAll(ProductFilter filter, int batchSize);
+
+    /**
+     * Writes {@code products} in one unordered bulk operation: inserted as new documents, or with
+     * {@code upsert} matched by skuCode and updated in place. A failed item does not stop the others;
+     * failures are reported through {@link org.springframework.data.mongodb.BulkOperationException}
+     * with the item's index in {@code products}.
+     */
+    BulkWriteResult bulkWrite(List<Product> products, boolean upsert);
+
+    // Ranked by text score over name, skuCode and description
+    List<Product> search(String terms, int limit);
+
+    // Case-insensitive name prefix, in name order
+    List<Product> findByNamePrefix(String prefix, int limit);
+}
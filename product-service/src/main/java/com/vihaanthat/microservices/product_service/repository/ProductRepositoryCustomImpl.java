@@ -0,0 +1,113 @@
+package com.vihaanthat.microservices.product_service.repository;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.vihaanthat.microservices.product_service.dto.ProductFilter;
+import com.vihaanthat.microservices.product_service.model.Product;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Product> findPage(ProductFilter filter, PageCursor after, int limit, Set<String> fields) {
+        ProductOrder order = ProductOrder.of(filter);
+        Query query = filterQuery(filter);
+        // Keyset pagination: seek past the last (key, id) of the previous page instead of skipping over it
+        if (after != null) {
+            query.addCriteria(order.field() == null
+                    ? Criteria.where("_id").gt(after.id())
+                    // The range on the key bounds the index scan; only the previous page's ties are read again
+                    : new Criteria().andOperator(
+                            Criteria.where(order.field()).gte(after.key()),
+                            new Criteria().orOperator(
+                                    Criteria.where(order.field()).gt(after.key()),
+                                    Criteria.where("_id").gt(after.id()))));
+        }
+        fields.forEach(field -> query.fields().include(field));
+        // The key is loaded even when not asked for, since the next cursor is built from it
+        if (!fields.isEmpty() && order.field() != null) {
+            query.fields().include(order.field());
+        }
+        query.with(order.sort()).limit(limit);
+        return mongoTemplate.find(query, Product.class);
+    }
+
+    @Override
+    public Stream<Product> streamAll(ProductFilter filter, int batchSize) {
+        Query query = filterQuery(filter)
+                .with(ProductOrder.of(filter).sort())
+                .cursorBatchSize(batchSize);
+        return mongoTemplate.stream(query, Product.class);
+    }
+
+    @Override
+    public BulkWriteResult bulkWrite(List<Product> products, boolean upsert) {
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        if (upsert) {
+            for (Product product : products) {
+                operations.upsert(Query.query(Criteria.where("skuCode").is(product.getSkuCode())), new Update()
+                        .set("name", product.getName())
+                        .set("nameKey", ProductNameKeyCallback.nameKey(product.getName()))
+                        .set("description", product.getDescription())
+                        .set("price", product.getPrice()));
+            }
+        } else {
+            operations.insert(products);
+        }
+        return operations.execute();
+    }
+
+    @Override
+    public List<Product> search(String terms, int limit) {
+        Query query = TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(terms))
+                .sortByScore()
+                .limit(limit);
+        return mongoTemplate.find(query, Product.class);
+    }
+
+    @Override
+    public List<Product> findByNamePrefix(String prefix, int limit) {
+        Query query = Query.query(Criteria.where("nameKey").regex("^" + Pattern.quote(prefix.toLowerCase(Locale.ROOT))))
+                .with(Sort.by(Sort.Direction.ASC, "nameKey"))
+                .limit(limit);
+        query.fields().include("name", "skuCode");
+        return mongoTemplate.find(query, Product.class);
+    }
+
+    private static Query filterQuery(ProductFilter filter) {
+        Query query = new Query();
+        if (filter.skuCode() != null) {
+            query.addCriteria(Criteria.where("skuCode").is(filter.skuCode()));
+        }
+        if (filter.namePrefix() != null) {
+            // Anchored, case-sensitive prefix so the name index can be used as a range scan
+            query.addCriteria(Criteria.where("name").regex("^" + Pattern.quote(filter.namePrefix())));
+        }
+        if (filter.minPrice() != null || filter.maxPrice() != null) {
+            Criteria price = Criteria.where("price");
+            if (filter.minPrice() != null) {
+                price = price.gte(filter.minPrice().doubleValue());
+            }
+            if (filter.maxPrice() != null) {
+                price = price.lte(filter.maxPrice().doubleValue());
+            }
+            query.addCriteria(price);
+        }
+        return query;
+    }
+}
@@ -0,0 +1,8 @@
+package com.vihaanthat.microservices.product_service.repository;
+
+import com.vihaanthat.microservices.product_service.model.Product;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+// Used by the "reactive" profile only; its repository auto-configuration is excluded otherwise
+public interface ReactiveProductRepository extends ReactiveMongoRepository<Product, String> {
+}
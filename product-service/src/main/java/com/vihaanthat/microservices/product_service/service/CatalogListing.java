@@ -0,0 +1,9 @@
+package com.vihaanthat.microservices.product_service.service;
+
+import com.vihaanthat.microservices.product_service.dto.ProductResponse;
+
+import java.util.List;
+
+// The full product listing as loaded for a catalog version, with the ETag of its content
+public record CatalogListing(long version, List<ProductResponse> products, String etag) {
+}
@@ -0,0 +1,202 @@
+package com.vihaanthat.microservices.product_service.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.vihaanthat.microservices.product_service.dto.ProductFilter;
+import com.vihaanthat.microservices.product_service.dto.ProductResponse;
+import com.vihaanthat.microservices.product_service.model.Product;
+import com.vihaanthat.microservices.product_service.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The full product listing pre-rendered as JSON (and gzip) files, so the listing is served without MongoDB or
+ * Jackson. A snapshot is kept for the {@link CatalogVersion} it was built for and is rebuilt on the first read
+ * after the shared version moves on, or once it is older than {@code product.snapshot.max-age}, which bounds
+ * how long writes made directly in MongoDB go unserved. While one request rebuilds, the others keep being
+ * served the previous snapshot with its own, older ETag. The version is the one {@link CatalogVersion} holds in
+ * memory, so serving the current snapshot touches no database; MongoDB is only queried while one is built.
+ * <p>
+ * Replaced snapshots keep their files for {@code product.snapshot.retain-for}: Tomcat's sendfile opens the
+ * file only after the handler returned, and a request may still be about to read it. Files are never mapped,
+ * so a deleted file's space is freed as soon as the last reader closes it.
+ */
+@Component
+@Slf4j
+public class CatalogSnapshot {
+    private final ProductRepository productRepository;
+    private final ObjectWriter productWriter;
+    private final ObjectMapper objectMapper;
+    private final CatalogVersion catalogVersion;
+    private final Path directory;
+    private final int batchSize;
+    private final Duration maxAge;
+    private final Duration retainFor;
+    private final AtomicLong generation = new AtomicLong();
+    // A lock rather than synchronized, so waiting virtual threads do not pin their carriers
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private volatile Snapshot current;
+    // Replaced snapshots whose files are not deleted yet, oldest first; guarded by rebuildLock
+    private final Deque<Retired> retired = new ArrayDeque<>();
+
+    public CatalogSnapshot(ProductRepository productRepository, ObjectMapper objectMapper,
+                           CatalogVersion catalogVersion,
+                           @Value("${product.snapshot.dir:${java.io.tmpdir}/product-snapshot}") Path directory,
+                           @Value("${product.export.batch-size:1000}") int batchSize,
+                           @Value("${product.snapshot.max-age:60s}") Duration maxAge,
+                           @Value("${product.snapshot.retain-for:5m}") Duration retainFor) {
+        this.productRepository = productRepository;
+        this.objectMapper = objectMapper;
+        this.productWriter = objectMapper.writerFor(ProductResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.catalogVersion = catalogVersion;
+        this.directory = directory;
+        this.batchSize = batchSize;
+        this.maxAge = maxAge;
+        this.retainFor = retainFor;
+    }
+
+    // Each encoding is its own representation, so the gzip file has its own strong ETag
+    public record Snapshot(long version, Instant builtAt, String etag, Path json, long jsonLength, String gzipEtag,
+                           Path gzip, long gzipLength) {
+    }
+
+    private record Retired(Snapshot snapshot, Instant retiredAt) {
+    }
+
+    public Snapshot current() {
+        long version = catalogVersion.current();
+        Snapshot snapshot = current;
+        if (isUpToDate(snapshot, version)) {
+            return snapshot;
+        }
+        if (snapshot != null && !rebuildLock.tryLock()) {
+            return snapshot;
+        }
+        if (snapshot == null) {
+            rebuildLock.lock();
+        }
+        try {
+            // Re-read from memory: the version may have moved on, or another request rebuilt it meanwhile
+            version = catalogVersion.current();
+            if (!isUpToDate(current, version)) {
+                if (current == null) {
+                    deleteSnapshotFiles();
+                }
+                Snapshot built = build(version);
+                Instant now = Instant.now();
+                if (current != null) {
+                    retired.addLast(new Retired(current, now));
+                }
+                current = built;
+                deleteRetiredBefore(now.minus(retainFor));
+            }
+            return current;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private boolean isUpToDate(Snapshot snapshot, long version) {
+        return snapshot != null && snapshot.version() == version
+                && snapshot.builtAt().plus(maxAge).isAfter(Instant.now());
+    }
+
+    // The version is read before the catalog, so the data is at least as new as the version it is kept for;
+    // the ETags derive from a digest of the JSON, so instances holding the same catalog hand out the same tags
+    // (gzip output need not be byte-identical across JDKs, so the gzip tag is not a digest of the gzip file)
+    private Snapshot build(long version) {
+        long start = System.nanoTime();
+        try {
+            Files.createDirectories(directory);
+            // A generation suffix, since a snapshot past its max age is rebuilt for the same version
+            String name = "catalog-" + version + "-" + generation.incrementAndGet();
+            Path json = directory.resolve(name + ".json");
+            Path gzip = directory.resolve(name + ".json.gz");
+            Path tmp = Files.createTempFile(directory, "catalog-", ".tmp");
+            MessageDigest digest = ContentETag.newDigest();
+            try (OutputStream out = new BufferedOutputStream(new DigestOutputStream(Files.newOutputStream(tmp), digest),
+                    64 * 1024);
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+                 Stream<Product> products = productRepository.streamAll(new ProductFilter(null, null, null, null),
+                         batchSize)) {
+                generator.writeStartArray();
+                products.forEach(product -> writeProduct(generator, product));
+                generator.writeEndArray();
+            }
+            Files.move(tmp, json, StandardCopyOption.ATOMIC_MOVE);
+            Path gzipTmp = Files.createTempFile(directory, "catalog-", ".tmp");
+            try (InputStream in = Files.newInputStream(json);
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzipTmp), 64 * 1024)) {
+                in.transferTo(out);
+            }
+            Files.move(gzipTmp, gzip, StandardCopyOption.ATOMIC_MOVE);
+            String etag = ContentETag.of(digest);
+            Snapshot snapshot = new Snapshot(version, Instant.now(), etag, json, Files.size(json),
+                    ContentETag.encoded(etag, "gz"), gzip, Files.size(gzip));
+            log.info("Built catalog snapshot {} ({} bytes, {} gzipped) in {} ms", name, snapshot.jsonLength(),
+                    snapshot.gzipLength(), (System.nanoTime() - start) / 1_000_000);
+            return snapshot;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot build catalog snapshot " + version, e);
+        }
+    }
+
+    private void writeProduct(JsonGenerator generator, Product product) {
+        try {
+            productWriter.writeValue(generator, ProductService.mapToProductResponse(product));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void deleteRetiredBefore(Instant cutoff) {
+        while (!retired.isEmpty() && retired.peekFirst().retiredAt().isBefore(cutoff)) {
+            Snapshot snapshot = retired.removeFirst().snapshot();
+            deleteQuietly(snapshot.json());
+            deleteQuietly(snapshot.gzip());
+        }
+    }
+
+    // Leftovers from before a restart
+    private void deleteSnapshotFiles() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().startsWith("catalog-")).forEach(CatalogSnapshot::deleteQuietly);
+        } catch (IOException e) {
+            log.warn("Cannot clean catalog snapshot directory {}", directory, e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Cannot delete old catalog snapshot {}", file, e);
+        }
+    }
+}
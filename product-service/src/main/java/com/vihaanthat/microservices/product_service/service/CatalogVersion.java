@@ -0,0 +1,71 @@
+package com.vihaanthat.microservices.product_service.service;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the product catalog, shared by every instance through a counter document in MongoDB. Every write
+ * made through {@link ProductService} bumps it, and the new value is taken over locally at once. Each instance
+ * reads the version from memory and polls the counter document in the background every
+ * {@code product.catalog-version.refresh-interval-ms}, so a conditional GET never waits on MongoDB and another
+ * instance's bump is seen here within one interval. It decides when the cached listing and the
+ * {@link CatalogSnapshot} are rebuilt; their ETags are derived from the content, so writes made directly in
+ * MongoDB still change the tag once the listing is rebuilt.
+ */
+@Component
+@Slf4j
+public class CatalogVersion {
+    private static final String COLLECTION = "catalog_version";
+    private static final String CATALOG = "product";
+
+    private final MongoTemplate mongoTemplate;
+    private final AtomicLong version = new AtomicLong();
+
+    public CatalogVersion(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+        refresh();
+    }
+
+    public void bump() {
+        Document counter = collection().findOneAndUpdate(Filters.eq("_id", CATALOG), Updates.inc("version", 1L),
+                new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+        advanceTo(versionOf(counter));
+    }
+
+    public long current() {
+        return version.get();
+    }
+
+    @Scheduled(fixedDelayString = "${product.catalog-version.refresh-interval-ms:1000}")
+    public void refresh() {
+        try {
+            advanceTo(versionOf(collection().find(Filters.eq("_id", CATALOG)).first()));
+        } catch (RuntimeException e) {
+            // Keep serving the last known version; the next poll tries again
+            log.warn("Cannot refresh the catalog version, staying at {}: {}", version.get(), e.getMessage());
+        }
+    }
+
+    // Only moves forward, so a poll that read the counter before a local bump cannot take the version back
+    private void advanceTo(long observed) {
+        version.accumulateAndGet(observed, Math::max);
+    }
+
+    private static long versionOf(Document counter) {
+        return counter == null ? 0 : counter.get("version", Number.class).longValue();
+    }
+
+    private MongoCollection<Document> collection() {
+        return mongoTemplate.getCollection(COLLECTION);
+    }
+}
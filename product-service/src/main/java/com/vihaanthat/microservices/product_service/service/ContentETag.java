@@ -0,0 +1,29 @@
+package com.vihaanthat.microservices.product_service.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+// Strong ETag from a digest of the representation, so every instance serving the same catalog gives the same tag
+final class ContentETag {
+
+    private ContentETag() {
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    static String of(MessageDigest digest) {
+        return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+    }
+
+    // Tag of the same content in a content coding, e.g. "abc" becomes "abc-gz"
+    static String encoded(String etag, String coding) {
+        return etag.substring(0, etag.length() - 1) + "-" + coding + "\"";
+    }
+}
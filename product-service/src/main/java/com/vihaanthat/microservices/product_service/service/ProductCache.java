@@ -0,0 +1,112 @@
+package com.vihaanthat.microservices.product_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vihaanthat.microservices.product_service.dto.ProductResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * Read-through cache of products by id, by SKU and of the full listing. Entries are dropped when
+ * {@link ProductService} writes and when the product collection's change stream reports a write from
+ * anywhere else; the TTL bounds staleness if the change stream is unavailable. Hits, misses and evictions
+ * are exported as cache.* metrics tagged cache=products.by-id, products.by-sku and products.listing.
+ * The listing is cached per {@link CatalogVersion}, so a listing loaded while the catalog changed is never
+ * served for the version that followed.
+ * <p>
+ * Every invalidation moves a generation counter. A load that overlapped an invalidation may have read the
+ * product before the write, so its result is handed to the caller but not kept; this also covers writes made
+ * directly in MongoDB, which invalidate through the change stream without moving the catalog version.
+ */
+@Component
+public class ProductCache {
+    private final Cache<String, ProductResponse> byId;
+    private final Cache<String, ProductResponse> bySku;
+    private final Cache<Long, CatalogListing> listing;
+    // SKU each cached by-SKU entry is held under, so a product's SKU entry is dropped by key
+    private final Map<String, String> skuById = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public ProductCache(@Value("${product.cache.size:10000}") long maximumSize,
+                        @Value("${product.cache.ttl:60s}") Duration ttl,
+                        MeterRegistry meterRegistry) {
+        this.byId = CaffeineCacheMetrics.monitor(meterRegistry, newCache(maximumSize, ttl), "products.by-id");
+        this.bySku = CaffeineCacheMetrics.monitor(meterRegistry, newCacheBuilder(maximumSize, ttl)
+                .<String, ProductResponse>evictionListener((skuCode, product, cause) -> {
+                    if (product != null) {
+                        skuById.remove(product.id(), skuCode);
+                    }
+                })
+                .build(), "products.by-sku");
+        this.listing = CaffeineCacheMetrics.monitor(meterRegistry, newCache(2, ttl), "products.listing");
+    }
+
+    public Optional<ProductResponse> getById(String id, Function<String, Optional<ProductResponse>> loader) {
+        return Optional.ofNullable(get(byId, id, key -> loader.apply(key).orElse(null)));
+    }
+
+    public Optional<ProductResponse> getBySku(String skuCode, Function<String, Optional<ProductResponse>> loader) {
+        return Optional.ofNullable(get(bySku, skuCode, key -> loader.apply(key)
+                .map(product -> {
+                    skuById.put(product.id(), key);
+                    return product;
+                })
+                .orElse(null)));
+    }
+
+    public CatalogListing getListing(long version, LongFunction<CatalogListing> loader) {
+        return get(listing, version, loader::apply);
+    }
+
+    // Drops everything that may hold the product; the SKU entry is found through the id, since the SKU may
+    // have changed
+    public void invalidate(String id) {
+        generation.incrementAndGet();
+        byId.invalidate(id);
+        String skuCode = skuById.remove(id);
+        if (skuCode != null) {
+            bySku.invalidate(skuCode);
+        }
+        listing.invalidateAll();
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        byId.invalidateAll();
+        bySku.invalidateAll();
+        skuById.clear();
+        listing.invalidateAll();
+    }
+
+    // The generation is read before loading and moved before invalidating, so a load that may have missed a
+    // write always sees the generation change afterwards
+    private <K, V> V get(Cache<K, V> cache, K key, Function<K, V> loader) {
+        long seen = generation.get();
+        V value = cache.get(key, loader);
+        if (value != null && generation.get() != seen) {
+            cache.asMap().remove(key, value);
+        }
+        return value;
+    }
+
+    private static <K, V> Cache<K, V> newCache(long maximumSize, Duration ttl) {
+        return newCacheBuilder(maximumSize, ttl).build();
+    }
+
+    private static Caffeine<Object, Object> newCacheBuilder(long maximumSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats();
+    }
+}
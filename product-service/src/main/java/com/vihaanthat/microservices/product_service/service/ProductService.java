@@ -1,41 +1,305 @@
 package com.vihaanthat.microservices.product_service.service;
 
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.vihaanthat.microservices.product_service.dto.BulkIngestResponse;
+import com.vihaanthat.microservices.product_service.dto.ProductFilter;
+import com.vihaanthat.microservices.product_service.dto.ProductPage;
 import com.vihaanthat.microservices.product_service.dto.ProductRequest;
 import com.vihaanthat.microservices.product_service.dto.ProductResponse;
+import com.vihaanthat.microservices.product_service.exception.ProductNotFoundException;
 import com.vihaanthat.microservices.product_service.model.Product;
+import com.vihaanthat.microservices.product_service.repository.PageCursor;
+import com.vihaanthat.microservices.product_service.repository.ProductOrder;
 import com.vihaanthat.microservices.product_service.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ProductService {
+    private static final Set<String> PROJECTABLE_FIELDS = Set.of("name", "description", "skuCode", "price");
+
     private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+    private final ProductCache productCache;
+    private final CatalogVersion catalogVersion;
+
+    @Value("${product.page.max-size:200}")
+    private int maxPageSize;
+
+    @Value("${product.export.batch-size:1000}")
+    private int exportBatchSize;
+
+    @Value("${product.bulk.batch-size:1000}")
+    private int bulkBatchSize;
+
+    @Value("${product.search.max-results:50}")
+    private int maxSearchResults;
 
     public ProductResponse createProduct(ProductRequest productRequest) {
-        Product product = Product.builder()
-                .name(productRequest.name())
-                .description(productRequest.description())
-                .skuCode(productRequest.skuCode())
-                .price(productRequest.price().doubleValue())
-                .build();
+        Product product = mapToProduct(productRequest);
         productRepository.save(product);
+        catalogVersion.bump();
+        productCache.invalidate(product.getId());
         log.info("Product created successfully");
-        return new ProductResponse(product.getId(), product.getName(), product.getDescription(),
-                product.getSkuCode(),
-                java.math.BigDecimal.valueOf(product.getPrice()));
+        return mapToProductResponse(product);
     }
 
     public List<ProductResponse> getAllProducts() {
-        return productRepository.findAll()
+        return getCatalogListing().products();
+    }
+
+    // The version is read before the listing is loaded, so the listing is at least as new as its version
+    public CatalogListing getCatalogListing() {
+        return productCache.getListing(catalogVersion.current(), version -> {
+            List<ProductResponse> products = productRepository.findAll()
+                    .stream()
+                    .map(ProductService::mapToProductResponse)
+                    .toList();
+            MessageDigest digest = ContentETag.newDigest();
+            try {
+                digest.update(objectMapper.writeValueAsBytes(products));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Cannot render the product listing", e);
+            }
+            return new CatalogListing(version, products, ContentETag.of(digest));
+        });
+    }
+
+    public ProductResponse getProduct(String id) {
+        return productCache.getById(id, key -> productRepository.findById(key).map(ProductService::mapToProductResponse))
+                .orElseThrow(() -> new ProductNotFoundException(id));
+    }
+
+    public ProductResponse getProductBySku(String skuCode) {
+        return productCache.getBySku(skuCode,
+                        key -> productRepository.findFirstBySkuCode(key).map(ProductService::mapToProductResponse))
+                .orElseThrow(() -> new ProductNotFoundException(skuCode));
+    }
+
+    /**
+     * Returns one page of products in the filter's {@link ProductOrder}, starting after {@code cursor}. The next
+     * page is requested with the returned cursor, so the cost of a page does not grow with how deep into the
+     * catalog it is.
+     */
+    public ProductPage getProducts(ProductFilter filter, String cursor, int limit, Collection<String> fields) {
+        if (limit < 1 || limit > maxPageSize) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxPageSize);
+        }
+        ProductOrder order = ProductOrder.of(filter);
+        PageCursor after = cursor == null ? null : PageCursor.parse(cursor, order);
+        Set<String> projection = new LinkedHashSet<>(fields == null ? List.of() : fields);
+        if (!PROJECTABLE_FIELDS.containsAll(projection)) {
+            throw new IllegalArgumentException("fields must be a subset of " + PROJECTABLE_FIELDS);
+        }
+        // One extra row tells whether there is a next page without a count query
+        List<Product> products = productRepository.findPage(filter, after, limit + 1, projection);
+        boolean hasMore = products.size() > limit;
+        List<Product> page = products.subList(0, Math.min(limit, products.size()));
+        String nextCursor = hasMore ? PageCursor.after(order, page.getLast()).toString() : null;
+        // The order's key is loaded for the cursor; leave it out of the items unless it was asked for
+        boolean hideKey = !projection.isEmpty() && order.field() != null && !projection.contains(order.field());
+        List<ProductResponse> items = page.stream()
+                .map(ProductService::mapToProductResponse)
+                .map(item -> hideKey ? withoutKey(item, order) : item)
+                .toList();
+        return new ProductPage(items, nextCursor);
+    }
+
+    private static ProductResponse withoutKey(ProductResponse item, ProductOrder order) {
+        return order == ProductOrder.NAME
+                ? new ProductResponse(item.id(), null, item.description(), item.skuCode(), item.price())
+                : new ProductResponse(item.id(), item.name(), item.description(), item.skuCode(), null);
+    }
+
+    public List<ProductResponse> searchProducts(String query, int limit) {
+        requireSearchInput(query, limit);
+        return productRepository.search(query, limit)
+                .stream()
+                .map(ProductService::mapToProductResponse)
+                .toList();
+    }
+
+    public List<ProductResponse> autocomplete(String prefix, int limit) {
+        requireSearchInput(prefix, limit);
+        return productRepository.findByNamePrefix(prefix, limit)
                 .stream()
-                .map(product -> new ProductResponse(product.getId(), product.getName(), product.getDescription(),
-                        product.getSkuCode(),
-                        java.math.BigDecimal.valueOf(product.getPrice())))
+                .map(ProductService::mapToProductResponse)
                 .toList();
     }
+
+    private void requireSearchInput(String input, int limit) {
+        if (input == null || input.isBlank()) {
+            throw new IllegalArgumentException("Search input must not be blank");
+        }
+        if (limit < 1 || limit > maxSearchResults) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxSearchResults);
+        }
+    }
+
+    /**
+     * Writes every product matching {@code filter} to {@code out} as NDJSON, one document per line, straight
+     * from the Mongo cursor. Only one cursor batch is held in memory, and a slow client slows the cursor down
+     * because the next batch is not fetched until the previous lines have been written.
+     */
+    public long exportProducts(ProductFilter filter, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(ProductResponse.class);
+        long exported = 0;
+        try (Stream<Product> products = productRepository.streamAll(filter, exportBatchSize)) {
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                out.write(writer.writeValueAsBytes(mapToProductResponse(iterator.next())));
+                out.write('\n');
+                exported++;
+            }
+        }
+        out.flush();
+        log.info("Exported {} products", exported);
+        return exported;
+    }
+
+    /**
+     * Reads {@link ProductRequest}s one at a time from {@code body} (a JSON array or NDJSON) and writes them
+     * in unordered bulk batches. Invalid or rejected items are reported by index and do not stop the rest;
+     * malformed JSON ends the import at that item, keeping what was written before it.
+     */
+    public BulkIngestResponse ingestProducts(InputStream body, boolean upsert) throws IOException {
+        BulkBatch batch = new BulkBatch(upsert);
+        int received = 0;
+        try (MappingIterator<ProductRequest> requests = objectMapper.readerFor(ProductRequest.class).readValues(body)) {
+            while (requests.hasNextValue()) {
+                ProductRequest productRequest = requests.nextValue();
+                int index = received++;
+                String invalid = validate(productRequest, upsert);
+                if (invalid != null) {
+                    batch.errors.add(new BulkIngestResponse.ItemError(index, productRequest.skuCode(), invalid));
+                    continue;
+                }
+                batch.add(index, mapToProduct(productRequest));
+                if (batch.products.size() >= bulkBatchSize) {
+                    writeBatch(batch);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            batch.errors.add(new BulkIngestResponse.ItemError(received, null,
+                    "Malformed product, import stopped here: " + e.getOriginalMessage()));
+        }
+        writeBatch(batch);
+        productCache.invalidateAll();
+        log.info("Bulk product import: {} received, {} inserted, {} updated, {} failed",
+                received, batch.inserted, batch.updated, batch.errors.size());
+        return new BulkIngestResponse(received, batch.inserted, batch.updated, batch.errors);
+    }
+
+    private void writeBatch(BulkBatch batch) {
+        if (batch.products.isEmpty()) {
+            return;
+        }
+        try {
+            batch.record(productRepository.bulkWrite(batch.products, batch.upsert));
+            catalogVersion.bump();
+        } catch (BulkOperationException e) {
+            catalogVersion.bump();
+            batch.record(e.getResult());
+            for (BulkWriteError error : e.getErrors()) {
+                int position = error.getIndex();
+                batch.errors.add(new BulkIngestResponse.ItemError(batch.itemIndexes.get(position),
+                        batch.products.get(position).getSkuCode(), error.getMessage()));
+            }
+        }
+        batch.clear();
+    }
+
+    private static String validate(ProductRequest productRequest, boolean upsert) {
+        if (productRequest == null || productRequest.name() == null || productRequest.name().isBlank()) {
+            return "name is required";
+        }
+        if (productRequest.price() == null || productRequest.price().signum() < 0) {
+            return "price is required and must not be negative";
+        }
+        if (upsert && productRequest.skuCode() == null) {
+            return "skuCode is required to upsert";
+        }
+        return null;
+    }
+
+    public static Product mapToProduct(ProductRequest productRequest) {
+        return Product.builder()
+                .name(productRequest.name())
+                .description(productRequest.description())
+                .skuCode(productRequest.skuCode())
+                .price(productRequest.price().doubleValue())
+                .build();
+    }
+
+    // One pending bulk batch, with each product's index in the request body for error reporting
+    private static final class BulkBatch {
+        private final boolean upsert;
+        private final List<Product> products = new ArrayList<>();
+        private final List<Integer> itemIndexes = new ArrayList<>();
+        // In upsert mode a SKU repeated within a batch is folded into its last occurrence
+        private final Map<String, Integer> positionsBySku = new HashMap<>();
+        private final List<BulkIngestResponse.ItemError> errors = new ArrayList<>();
+        private int inserted;
+        private int updated;
+
+        private BulkBatch(boolean upsert) {
+            this.upsert = upsert;
+        }
+
+        private void add(int index, Product product) {
+            Integer position = upsert ? positionsBySku.get(product.getSkuCode()) : null;
+            if (position != null) {
+                products.set(position, product);
+                itemIndexes.set(position, index);
+                return;
+            }
+            if (upsert) {
+                positionsBySku.put(product.getSkuCode(), products.size());
+            }
+            products.add(product);
+            itemIndexes.add(index);
+        }
+
+        private void record(BulkWriteResult result) {
+            inserted += result.getInsertedCount() + result.getUpserts().size();
+            updated += result.getMatchedCount();
+        }
+
+        private void clear() {
+            products.clear();
+            itemIndexes.clear();
+            positionsBySku.clear();
+        }
+    }
+
+    public static ProductResponse mapToProductResponse(Product product) {
+        return new ProductResponse(product.getId(), product.getName(), product.getDescription(),
+                product.getSkuCode(),
+                product.getPrice() == null ? null : BigDecimal.valueOf(product.getPrice()));
+    }
 }
@@ -0,0 +1,53 @@
+package com.vihaanthat.microservices.product_service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Opens {@code clients} concurrent catalog reads against the running server and logs throughput and the
+ * peak number of platform threads per core. The client side is asynchronous on two threads, so the thread
+ * growth is the server's. Shared by the servlet and reactive test classes so both stacks run the same load.
+ */
+@Slf4j
+final class CatalogReadBenchmark {
+
+    private CatalogReadBenchmark() {
+    }
+
+    static void run(String stack, int port, int clients, int rounds) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(2);
+        try (HttpClient httpClient = HttpClient.newBuilder().executor(clientExecutor).build()) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/product")).build();
+            int baseline = threads.getThreadCount();
+            threads.resetPeakThreadCount();
+            long start = System.nanoTime();
+            for (int round = 0; round < rounds; round++) {
+                List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>();
+                for (int i = 0; i < clients; i++) {
+                    responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+                }
+                CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).join();
+            }
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            int cores = Runtime.getRuntime().availableProcessors();
+            int growth = threads.getPeakThreadCount() - baseline;
+            log.info("{}: {} concurrent readers x {} rounds, {} req/s, peak platform threads {} (+{} over idle, {} per core)",
+                    stack, clients, rounds, Math.round(clients * rounds / seconds), threads.getPeakThreadCount(),
+                    growth, String.format("%.1f", growth / (double) cores));
+        } finally {
+            clientExecutor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.vihaanthat.microservices.product_service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vihaanthat.microservices.product_service.controller.CatalogListingController;
+import com.vihaanthat.microservices.product_service.controller.CatalogSnapshotController;
+import com.vihaanthat.microservices.product_service.dto.ProductResponse;
+import com.vihaanthat.microservices.product_service.model.Product;
+import com.vihaanthat.microservices.product_service.repository.ProductRepository;
+import com.vihaanthat.microservices.product_service.service.CatalogListing;
+import com.vihaanthat.microservices.product_service.service.CatalogSnapshot;
+import com.vihaanthat.microservices.product_service.service.CatalogVersion;
+import com.vihaanthat.microservices.product_service.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Plain unit tests for the catalog snapshot and the controllers that serve GET /api/product; MongoDB is mocked,
+ * so these run without Docker.
+ */
+class CatalogSnapshotTests {
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final CatalogVersion catalogVersion = mock(CatalogVersion.class);
+    private final ProductService productService = mock(ProductService.class);
+
+    @BeforeEach
+    void setUp() {
+        when(productRepository.streamAll(any(), anyInt())).thenAnswer(invocation -> Stream.of(
+                new Product("1", "Phone", "A phone", "phone_1", 999.99, "phone"),
+                new Product("2", "Case", "A case", "case_1", 19.99, "case")));
+        when(catalogVersion.current()).thenReturn(1L);
+    }
+
+    @Test
+    void shouldServeSnapshotAsJsonAndGzip() throws IOException {
+        CatalogSnapshotController controller = new CatalogSnapshotController(
+                snapshot(Duration.ofMinutes(1), Duration.ofMinutes(5)));
+
+        MockHttpServletResponse plain = get(controller, new MockHttpServletRequest("GET", "/api/product"));
+        String json = plain.getContentAsString();
+        assert(plain.getStatus() == 200);
+        assert(plain.getContentLengthLong() == json.getBytes(StandardCharsets.UTF_8).length);
+        assert(json.contains("\"skuCode\":\"phone_1\"") && json.contains("\"skuCode\":\"case_1\""));
+        assert(plain.getHeader("ETag") != null);
+
+        MockHttpServletRequest gzipRequest = new MockHttpServletRequest("GET", "/api/product");
+        gzipRequest.addHeader("Accept-Encoding", "gzip, deflate");
+        MockHttpServletResponse gzipped = get(controller, gzipRequest);
+        assert("gzip".equals(gzipped.getHeader("Content-Encoding")));
+        assert(gzipped.getContentLengthLong() == gzipped.getContentAsByteArray().length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray()))) {
+            assert(json.equals(new String(in.readAllBytes(), StandardCharsets.UTF_8)));
+        }
+        // Different bytes, so a different strong ETag for each encoding
+        assert(gzipped.getHeader("ETag") != null && !plain.getHeader("ETag").equals(gzipped.getHeader("ETag")));
+        verify(productService, never()).getCatalogListing();
+    }
+
+    @Test
+    void shouldNotServeGzipWhenItsQualityIsZero() throws IOException {
+        CatalogSnapshotController controller = new CatalogSnapshotController(
+                snapshot(Duration.ofMinutes(1), Duration.ofMinutes(5)));
+
+        for (String acceptEncoding : List.of("gzip;q=0", "br, gzip; q=0.0", "*;q=0", "identity, *;q=0.5, gzip;q=0")) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/product");
+            request.addHeader("Accept-Encoding", acceptEncoding);
+            assert(get(controller, request).getHeader("Content-Encoding") == null);
+        }
+        MockHttpServletRequest anyEncoding = new MockHttpServletRequest("GET", "/api/product");
+        anyEncoding.addHeader("Accept-Encoding", "br;q=1.0, *;q=0.1");
+        assert("gzip".equals(get(controller, anyEncoding).getHeader("Content-Encoding")));
+    }
+
+    @Test
+    void shouldMatchIfNoneMatchAgainstTheTagOfTheServedEncoding() throws IOException {
+        CatalogSnapshotController controller = new CatalogSnapshotController(
+                snapshot(Duration.ofMinutes(1), Duration.ofMinutes(5)));
+        MockHttpServletRequest gzipRequest = new MockHttpServletRequest("GET", "/api/product");
+        gzipRequest.addHeader("Accept-Encoding", "gzip");
+        String gzipEtag = get(controller, gzipRequest).getHeader("ETag");
+
+        MockHttpServletRequest sameEncoding = new MockHttpServletRequest("GET", "/api/product");
+        sameEncoding.addHeader("Accept-Encoding", "gzip");
+        sameEncoding.addHeader("If-None-Match", gzipEtag);
+        MockHttpServletResponse notModified = get(controller, sameEncoding);
+        assert(notModified.getStatus() == 304);
+        assert("Accept-Encoding".equals(notModified.getHeader("Vary")));
+
+        MockHttpServletRequest identity = new MockHttpServletRequest("GET", "/api/product");
+        identity.addHeader("If-None-Match", gzipEtag);
+        MockHttpServletResponse full = get(controller, identity);
+        assert(full.getStatus() == 200 && full.getHeader("Content-Encoding") == null);
+    }
+
+    @Test
+    void shouldHandSnapshotFileToSendfile() throws IOException {
+        CatalogSnapshotController controller = new CatalogSnapshotController(
+                snapshot(Duration.ofMinutes(1), Duration.ofMinutes(5)));
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/product");
+        request.setAttribute("org.apache.tomcat.sendfile.support", true);
+        MockHttpServletResponse response = get(controller, request);
+
+        Path file = Path.of((String) request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assert(response.getContentAsByteArray().length == 0);
+        assert(Long.valueOf(0L).equals(request.getAttribute("org.apache.tomcat.sendfile.start")));
+        assert(Long.valueOf(Files.size(file)).equals(request.getAttribute("org.apache.tomcat.sendfile.end")));
+        assert(response.getContentLengthLong() == Files.size(file));
+        assert(Files.readString(file).contains("\"skuCode\":\"phone_1\""));
+    }
+
+    @Test
+    void shouldRebuildWhenTheSharedVersionMoves() {
+        CatalogSnapshot catalogSnapshot = snapshot(Duration.ofMinutes(1), Duration.ofMinutes(5));
+        CatalogSnapshot.Snapshot first = catalogSnapshot.current();
+        assert(catalogSnapshot.current() == first);
+
+        when(catalogVersion.current()).thenReturn(2L);
+        CatalogSnapshot.Snapshot second = catalogSnapshot.current();
+        assert(second.version() == 2L);
+        assert(!second.json().equals(first.json()));
+    }
+
+    @Test
+    void shouldServeTheCurrentSnapshotWithoutQueryingTheCatalog() {
+        CatalogSnapshot catalogSnapshot = snapshot(Duration.ofMinutes(1), Duration.ofMinutes(5));
+        for (int i = 0; i < 10; i++) {
+            catalogSnapshot.current();
+        }
+
+        verify(productRepository, times(1)).streamAll(any(), anyInt());
+    }
+
+    @Test
+    void shouldRebuildOnceMaxAgeIsReached() {
+        CatalogSnapshot catalogSnapshot = snapshot(Duration.ZERO, Duration.ofMinutes(5));
+        CatalogSnapshot.Snapshot first = catalogSnapshot.current();
+        CatalogSnapshot.Snapshot second = catalogSnapshot.current();
+
+        assert(second != first);
+        assert(second.version() == first.version());
+        assert(!second.json().equals(first.json()));
+        // Same content, so the same ETag however often it is rebuilt
+        assert(second.etag().equals(first.etag()));
+    }
+
+    @Test
+    void shouldKeepReplacedSnapshotFilesForRetainFor() {
+        CatalogSnapshot retaining = snapshot(Duration.ZERO, Duration.ofMinutes(5));
+        CatalogSnapshot.Snapshot first = retaining.current();
+        retaining.current();
+        retaining.current();
+        assert(Files.exists(first.json()) && Files.exists(first.gzip()));
+
+        CatalogSnapshot notRetaining = snapshot(Duration.ZERO, Duration.ZERO);
+        CatalogSnapshot.Snapshot replaced = notRetaining.current();
+        CatalogSnapshot.Snapshot latest = notRetaining.current();
+        notRetaining.current();
+        assert(!Files.exists(replaced.json()) && !Files.exists(replaced.gzip()));
+        assert(Files.exists(latest.json()));
+    }
+
+    @Test
+    void shouldServeCachedListingWhenSnapshotIsDisabled() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new CatalogListingController(productService)).build();
+        List<ProductResponse> products = List.of(
+                new ProductResponse("1", "Phone", "A phone", "phone_1", BigDecimal.valueOf(999.99)));
+        when(productService.getCatalogListing()).thenReturn(new CatalogListing(1L, products, "\"abc\""));
+
+        MockHttpServletResponse response = mockMvc.perform(MockMvcRequestBuilders.get("/api/product"))
+                .andReturn().getResponse();
+        assert(response.getStatus() == 200);
+        assert("\"abc\"".equals(response.getHeader("ETag")));
+        assert(response.getContentAsString().contains("\"skuCode\":\"phone_1\""));
+
+        MockHttpServletResponse notModified = mockMvc.perform(MockMvcRequestBuilders.get("/api/product")
+                        .header("If-None-Match", "\"abc\""))
+                .andReturn().getResponse();
+        assert(notModified.getStatus() == 304);
+        assert(notModified.getContentAsByteArray().length == 0);
+    }
+
+    private CatalogSnapshot snapshot(Duration maxAge, Duration retainFor) {
+        return new CatalogSnapshot(productRepository, objectMapper, catalogVersion, directory, 100, maxAge, retainFor);
+    }
+
+    private static MockHttpServletResponse get(CatalogSnapshotController controller, MockHttpServletRequest request)
+            throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.getCatalogSnapshot(new ServletWebRequest(request, response), request, response);
+        return response;
+    }
+}
@@ -0,0 +1,68 @@
+package com.vihaanthat.microservices.product_service;
+
+import com.vihaanthat.microservices.product_service.dto.ProductResponse;
+import com.vihaanthat.microservices.product_service.service.CatalogListing;
+import com.vihaanthat.microservices.product_service.service.ProductCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plain unit tests for {@link ProductCache}: invalidation by id and loads that race with an invalidation.
+ */
+class ProductCacheTests {
+    private final ProductCache productCache = new ProductCache(100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void shouldDropTheSkuEntryWhenTheProductIsInvalidated() {
+        productCache.getBySku("phone_1", this::load);
+        productCache.getBySku("case_1", this::load);
+        productCache.invalidate("phone_1-id");
+
+        productCache.getBySku("phone_1", this::load);
+        productCache.getBySku("case_1", this::load);
+        assert(loads.get() == 3);
+    }
+
+    @Test
+    void shouldNotKeepAListingLoadedAcrossAnInvalidation() {
+        // A write made directly in MongoDB: the change stream invalidates while the listing is being loaded,
+        // and the catalog version does not move
+        CatalogListing stale = productCache.getListing(1L, version -> {
+            productCache.invalidate("phone_1-id");
+            return listing(version, "stale");
+        });
+        assert(stale.etag().equals("stale"));
+
+        CatalogListing reloaded = productCache.getListing(1L, version -> listing(version, "fresh"));
+        assert(reloaded.etag().equals("fresh"));
+        assert(productCache.getListing(1L, version -> listing(version, "unused")) == reloaded);
+    }
+
+    @Test
+    void shouldNotKeepASkuEntryLoadedAcrossAnInvalidation() {
+        productCache.getBySku("phone_1", skuCode -> {
+            Optional<ProductResponse> product = load(skuCode);
+            productCache.invalidate("phone_1-id");
+            return product;
+        });
+
+        productCache.getBySku("phone_1", this::load);
+        assert(loads.get() == 2);
+    }
+
+    private Optional<ProductResponse> load(String skuCode) {
+        loads.incrementAndGet();
+        return Optional.of(new ProductResponse(skuCode + "-id", skuCode, "A product", skuCode, BigDecimal.TEN));
+    }
+
+    private static CatalogListing listing(long version, String etag) {
+        return new CatalogListing(version, List.of(), etag);
+    }
+}
@@ -1,23 +1,47 @@
 package com.vihaanthat.microservices.product_service;
 
+import com.vihaanthat.microservices.product_service.dto.ProductFilter;
+import com.vihaanthat.microservices.product_service.dto.ProductPage;
+import com.vihaanthat.microservices.product_service.model.Product;
+import com.vihaanthat.microservices.product_service.service.CatalogVersion;
+import com.vihaanthat.microservices.product_service.service.ProductService;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
 import io.restassured.RestAssured;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.testcontainers.containers.MongoDBContainer;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
 @Import(TestcontainersConfiguration.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Slf4j
 class ProductServiceApplicationTests {
 
     @ServiceConnection
     static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:7.0.5");
     @LocalServerPort
     private Integer port;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private CatalogVersion catalogVersion;
 
     @BeforeEach
     void setup() {
@@ -53,4 +77,349 @@ class ProductServiceApplicationTests {
 
 	}
 
+
+    @Test
+    void shouldPageThroughFilteredProducts() {
+        for (int i = 0; i < 5; i++) {
+            mongoTemplate.insert(product("Pixel " + i, "Phone", "pixel_" + i, 500.0 + i * 100));
+        }
+
+        String nextCursor = RestAssured.given()
+                .when()
+                .get("/api/product?limit=2&namePrefix=Pixel&minPrice=600&fields=name")
+                .then()
+                .statusCode(200)
+                .body("items.name", Matchers.contains("Pixel 1", "Pixel 2"))
+                .body("items[0].price", Matchers.nullValue())
+                .body("nextCursor", Matchers.notNullValue())
+                .extract().path("nextCursor");
+
+        RestAssured.given()
+                .when()
+                .get("/api/product?limit=2&namePrefix=Pixel&minPrice=600&fields=name&cursor=" + nextCursor)
+                .then()
+                .statusCode(200)
+                .body("items.name", Matchers.contains("Pixel 3", "Pixel 4"))
+                .body("nextCursor", Matchers.nullValue());
+    }
+
+    @Test
+    void shouldPageThroughPriceRangeInPriceOrder() {
+        // Inserted from the most to the least expensive, so id order and price order disagree
+        for (int i = 5; i >= 0; i--) {
+            mongoTemplate.insert(product("Lens " + i, "Lens", "lens_" + i, 1001.0 + i / 2));
+        }
+        ProductFilter priceRange = new ProductFilter(null, null, BigDecimal.valueOf(1001), BigDecimal.valueOf(1003));
+
+        ProductPage first = productService.getProducts(priceRange, null, 3, List.of("name"));
+        ProductPage second = productService.getProducts(priceRange, first.nextCursor(), 3, List.of("name"));
+
+        List<String> names = new ArrayList<>();
+        first.items().forEach(item -> names.add(item.name()));
+        second.items().forEach(item -> names.add(item.name()));
+        assert(names.equals(List.of("Lens 1", "Lens 0", "Lens 3", "Lens 2", "Lens 5", "Lens 4")));
+        assert(first.items().get(0).price() == null);
+        assert(second.nextCursor() == null);
+    }
+
+    @Test
+    void shouldReadFilteredPagesFromTheFilterIndexWithoutSorting() {
+        mongoTemplate.insert(product("Optic 1", "Lens", "optic_1", 1101.0));
+        mongoTemplate.insert(product("Optic 2", "Lens", "optic_2", 1102.0));
+        ProductFilter priceRange = new ProductFilter(null, null, BigDecimal.valueOf(1101), BigDecimal.valueOf(1102));
+        String cursor = productService.getProducts(priceRange, null, 1, List.of()).nextCursor();
+
+        // The profiler records each find with the plan summary that explain() reports for it
+        mongoTemplate.getDb().runCommand(new Document("profile", 2));
+        try {
+            productService.getProducts(priceRange, cursor, 1, List.of("name"));
+            productService.getProducts(new ProductFilter(null, "Optic", null, null), null, 1, List.of());
+        } finally {
+            mongoTemplate.getDb().runCommand(new Document("profile", 0));
+        }
+
+        List<Document> finds = mongoTemplate.getCollection("system.profile")
+                .find(Filters.eq("command.find", "product"))
+                .into(new ArrayList<>());
+        assert(finds.size() == 2);
+        assert(finds.get(0).getString("planSummary").equals("IXSCAN { price: 1, _id: 1 }"));
+        assert(finds.get(1).getString("planSummary").equals("IXSCAN { name: 1, _id: 1 }"));
+        assert(finds.stream().noneMatch(find -> find.getBoolean("hasSortStage", false)));
+    }
+
+    @Test
+    void shouldExportProductsAsNdjson() {
+        mongoTemplate.insert(product("Export A", "Exported", "export_a", 10.0));
+        mongoTemplate.insert(product("Export B", "Exported", "export_b", 20.0));
+
+        String body = RestAssured.given()
+                .when()
+                .get("/api/product/export?namePrefix=Export")
+                .then()
+                .statusCode(200)
+                .contentType("application/x-ndjson")
+                .extract().body().asString();
+
+        String[] lines = body.split("\n");
+        assert(lines.length == 2);
+        assert(lines[0].contains("\"skuCode\":\"export_a\""));
+        assert(lines[1].contains("\"skuCode\":\"export_b\""));
+    }
+
+    @Test
+    void shouldInvalidateCachedProductOnExternalWrite() throws InterruptedException {
+        Product product = mongoTemplate.insert(product("Cached", "Before", "cached_sku", 10.0));
+
+        RestAssured.given()
+                .when()
+                .get("/api/product/sku/cached_sku")
+                .then()
+                .statusCode(200)
+                .body("description", Matchers.equalTo("Before"));
+
+        // Written behind the service's back; only the change stream can tell the cache
+        product.setDescription("After");
+        mongoTemplate.save(product);
+
+        String description = null;
+        for (int attempt = 0; attempt < 50 && !"After".equals(description); attempt++) {
+            Thread.sleep(100);
+            description = RestAssured.given()
+                    .when()
+                    .get("/api/product/sku/cached_sku")
+                    .then()
+                    .statusCode(200)
+                    .extract().path("description");
+        }
+
+        assert("After".equals(description));
+    }
+
+    @Test
+    void shouldBulkUpsertProductsBySkuCode() {
+        String ndjson = """
+                {"name": "Bulk A", "skuCode": "bulk_a", "price": 10}
+                {"name": "Bulk B", "skuCode": "bulk_b", "price": 20}
+                {"name": "No price", "skuCode": "bulk_c"}
+                """;
+
+        RestAssured.given()
+                .contentType("application/x-ndjson")
+                .body(ndjson)
+                .when()
+                .post("/api/product/bulk?upsert=true")
+                .then()
+                .statusCode(200)
+                .body("received", Matchers.equalTo(3))
+                .body("inserted", Matchers.equalTo(2))
+                .body("errors[0].index", Matchers.equalTo(2))
+                .body("errors[0].skuCode", Matchers.equalTo("bulk_c"));
+
+        RestAssured.given()
+                .contentType("application/json")
+                .body("""
+                        [{"name": "Bulk A v2", "skuCode": "bulk_a", "price": 15}]
+                        """)
+                .when()
+                .post("/api/product/bulk?upsert=true")
+                .then()
+                .statusCode(200)
+                .body("inserted", Matchers.equalTo(0))
+                .body("updated", Matchers.equalTo(1));
+
+        RestAssured.given()
+                .when()
+                .get("/api/product/sku/bulk_a")
+                .then()
+                .statusCode(200)
+                .body("name", Matchers.equalTo("Bulk A v2"));
+    }
+
+    @Test
+    void shouldRejectADuplicateSkuCode() {
+        String requestBody = """
+                {"name": "Unique", "skuCode": "unique_sku", "price": 1}
+                """;
+        RestAssured.given().contentType("application/json").body(requestBody)
+                .when().post("/api/product")
+                .then().statusCode(201);
+
+        RestAssured.given().contentType("application/json").body(requestBody)
+                .when().post("/api/product")
+                .then().statusCode(409);
+
+        // Products without a SKU are not in the unique index, so any number of them can exist
+        for (int i = 0; i < 2; i++) {
+            RestAssured.given().contentType("application/json").body("""
+                            {"name": "No SKU", "price": 1}
+                            """)
+                    .when().post("/api/product")
+                    .then().statusCode(201);
+        }
+    }
+
+    @Test
+    void shouldSearchAndAutocompleteProducts() {
+        mongoTemplate.insert(product("Galaxy Tab S9", "Android tablet", "galaxy_tab_s9", 799.0));
+        mongoTemplate.insert(product("Pixel Tablet", "Tablet with a Galaxy-free dock", "pixel_tablet", 499.0));
+        mongoTemplate.insert(product("Gadget Sleeve", "Sleeve for tablets", "gadget_sleeve", 29.0));
+
+        RestAssured.given()
+                .when()
+                .get("/api/product/search?q=galaxy")
+                .then()
+                .statusCode(200)
+                .body("name[0]", Matchers.equalTo("Galaxy Tab S9"));
+
+        RestAssured.given()
+                .when()
+                .get("/api/product/autocomplete?prefix=ga")
+                .then()
+                .statusCode(200)
+                .body("name", Matchers.contains("Gadget Sleeve", "Galaxy Tab S9"));
+    }
+
+    @Test
+    void shouldAnswerUnchangedCatalogWithNotModified() {
+        String etag = RestAssured.given()
+                .when()
+                .get("/api/product")
+                .then()
+                .statusCode(200)
+                .header("ETag", Matchers.notNullValue())
+                .extract().header("ETag");
+
+        RestAssured.given()
+                .header("If-None-Match", etag)
+                .when()
+                .get("/api/product")
+                .then()
+                .statusCode(304);
+
+        RestAssured.given()
+                .contentType("application/json")
+                .body("""
+                        {"name": "Versioned", "skuCode": "versioned_sku", "price": 5}
+                        """)
+                .when()
+                .post("/api/product")
+                .then()
+                .statusCode(201);
+
+        RestAssured.given()
+                .header("If-None-Match", etag)
+                .when()
+                .get("/api/product")
+                .then()
+                .statusCode(200)
+                .header("ETag", Matchers.not(etag));
+    }
+
+    @Test
+    void shouldAnswerNotModifiedWithoutTouchingMongo() {
+        String etag = RestAssured.given()
+                .when()
+                .get("/api/product")
+                .then()
+                .statusCode(200)
+                .extract().header("ETag");
+
+        mongoTemplate.getDb().runCommand(new Document("profile", 2));
+        try {
+            RestAssured.given()
+                    .header("If-None-Match", etag)
+                    .when()
+                    .get("/api/product")
+                    .then()
+                    .statusCode(304);
+        } finally {
+            mongoTemplate.getDb().runCommand(new Document("profile", 0));
+        }
+
+        // The background poll of the version counter may run meanwhile; the request itself reads nothing
+        List<Document> reads = mongoTemplate.getCollection("system.profile")
+                .find(Filters.and(Filters.eq("op", "query"),
+                        Filters.ne("ns", mongoTemplate.getDb().getName() + ".catalog_version")))
+                .into(new ArrayList<>());
+        assert(reads.isEmpty());
+    }
+
+    @Test
+    void shouldChangeCatalogETagForWritesFromAnotherInstance() {
+        String etag = RestAssured.given()
+                .when()
+                .get("/api/product")
+                .then()
+                .statusCode(200)
+                .extract().header("ETag");
+
+        // Another instance writes and bumps the shared counter; this instance sees it on its next poll
+        mongoTemplate.insert(product("Elsewhere", "Written by another instance", "elsewhere_sku", 5.0));
+        long before = catalogVersion.current();
+        mongoTemplate.getCollection("catalog_version").updateOne(Filters.eq("_id", "product"),
+                Updates.inc("version", 1L), new UpdateOptions().upsert(true));
+        catalogVersion.refresh();
+        assert(catalogVersion.current() > before);
+
+        RestAssured.given()
+                .header("If-None-Match", etag)
+                .when()
+                .get("/api/product")
+                .then()
+                .statusCode(200)
+                .header("ETag", Matchers.not(etag))
+                .body("skuCode", Matchers.hasItem("elsewhere_sku"));
+    }
+
+    // Same load as ReactiveProductRoutesTests#benchmarkConcurrentCatalogReads on the reactive stack
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkConcurrentCatalogReads() {
+        CatalogReadBenchmark.run("servlet", port, Integer.getInteger("benchmark.clients", 1000), 5);
+    }
+
+    // Seeds -Dbenchmark.products (default 1,000,000) products and compares walking every keyset page with
+    // loading the full list
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkKeysetPaginationAgainstFullListing() {
+        int products = Integer.getInteger("benchmark.products", 1_000_000);
+        List<Product> batch = new ArrayList<>();
+        for (int i = 0; i < products; i++) {
+            batch.add(product("Product " + i, "Benchmark product", "bench_" + i, (double) (i % 1000)));
+            if (batch.size() == 10_000) {
+                mongoTemplate.insertAll(batch);
+                batch.clear();
+            }
+        }
+        mongoTemplate.insertAll(batch);
+        ProductFilter noFilter = new ProductFilter(null, null, null, null);
+
+        long start = System.nanoTime();
+        String cursor = null;
+        int pages = 0;
+        do {
+            cursor = productService.getProducts(noFilter, cursor, 200, List.of()).nextCursor();
+            pages++;
+        } while (cursor != null);
+        long keysetNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        var page = productService.getProducts(new ProductFilter(null, null, BigDecimal.valueOf(990), null),
+                null, 200, List.of("name", "price"));
+        long filteredNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int listed = productService.getAllProducts().size();
+        long fullListNanos = System.nanoTime() - start;
+
+        log.info("{} pages of 200 in {} ms ({} ms/page), filtered projected page of {} in {} ms, full listing of {} in {} ms",
+                pages, keysetNanos / 1_000_000, String.format("%.2f", keysetNanos / 1_000_000.0 / pages),
+                page.items().size(), String.format("%.2f", filteredNanos / 1_000_000.0), listed,
+                fullListNanos / 1_000_000);
+    }
+
+    private static Product product(String name, String description, String skuCode, double price) {
+        return Product.builder().name(name).description(description).skuCode(skuCode).price(price).build();
+    }
 }
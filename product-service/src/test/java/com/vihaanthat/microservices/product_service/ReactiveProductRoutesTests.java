@@ -0,0 +1,68 @@
+package com.vihaanthat.microservices.product_service;
+
+import io.restassured.RestAssured;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.MongoDBContainer;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+class ReactiveProductRoutesTests {
+
+    @ServiceConnection
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:7.0.5");
+    @LocalServerPort
+    private Integer port;
+
+    @BeforeEach
+    void setup() {
+        RestAssured.baseURI = "http://localhost";
+        RestAssured.port = port;
+    }
+
+    static {
+        mongoDBContainer.start();
+    }
+
+    @Test
+    void shouldCreateAndStreamProducts() {
+        String id = RestAssured.given()
+                .contentType("application/json")
+                .body("""
+                        {"name": "Reactive Phone", "description": "Streamed", "skuCode": "reactive_phone", "price": 199.99}
+                        """)
+                .when()
+                .post("/api/product")
+                .then()
+                .statusCode(201)
+                .body("name", Matchers.equalTo("Reactive Phone"))
+                .extract().path("id");
+
+        RestAssured.given()
+                .when()
+                .get("/api/product")
+                .then()
+                .statusCode(200)
+                .body("skuCode", Matchers.hasItem("reactive_phone"));
+
+        RestAssured.given()
+                .when()
+                .get("/api/product/" + id)
+                .then()
+                .statusCode(200)
+                .body("skuCode", Matchers.equalTo("reactive_phone"));
+    }
+
+    // Same load as ProductServiceApplicationTests#benchmarkConcurrentCatalogReads on the servlet stack
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkConcurrentCatalogReads() {
+        CatalogReadBenchmark.run("reactive", port, Integer.getInteger("benchmark.clients", 1000), 5);
+    }
+}